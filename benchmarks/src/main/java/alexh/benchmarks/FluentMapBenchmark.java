@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.benchmarks;
+
+import alexh.Fluent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building a small map fluently, compared with plain puts, double-brace initialization & Map.of. Keys and
+ * values are fields, so the builds are not constant folded. appendAll is compared with putAll of a 100 entry map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FluentMapBenchmark {
+
+    String k1 = "one", k2 = "two", k3 = "three", k4 = "four", k5 = "five";
+    Integer v1 = 1, v2 = 2, v3 = 3, v4 = 4, v5 = 5;
+    Map<String, Integer> hundred;
+
+    @Setup
+    public void setup() {
+        hundred = new HashMap<>();
+        for (int i = 0; i < 100; ++i) hundred.put("key" + i, i);
+    }
+
+    @Benchmark
+    public Map<String, Integer> fluentAppend() {
+        return new Fluent.HashMap<String, Integer>()
+            .append(k1, v1)
+            .append(k2, v2)
+            .append(k3, v3)
+            .append(k4, v4)
+            .append(k5, v5);
+    }
+
+    @Benchmark
+    public Map<String, Integer> plainPut() {
+        Map<String, Integer> map = new HashMap<>();
+        map.put(k1, v1);
+        map.put(k2, v2);
+        map.put(k3, v3);
+        map.put(k4, v4);
+        map.put(k5, v5);
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, Integer> doubleBrace() {
+        return new HashMap<String, Integer>() {{
+            put(k1, v1);
+            put(k2, v2);
+            put(k3, v3);
+            put(k4, v4);
+            put(k5, v5);
+        }};
+    }
+
+    @Benchmark
+    public Map<String, Integer> mapOf() {
+        return Map.of(k1, v1, k2, v2, k3, v3, k4, v4, k5, v5);
+    }
+
+    @Benchmark
+    public Map<String, Integer> fluentAppendUnmodifiable() {
+        return new Fluent.HashMap<String, Integer>()
+            .append(k1, v1)
+            .append(k2, v2)
+            .append(k3, v3)
+            .append(k4, v4)
+            .append(k5, v5)
+            .unmodifiable();
+    }
+
+    @Benchmark
+    public Map<String, Integer> fluentAppendAll() {
+        return new Fluent.HashMap<String, Integer>().appendAll(hundred);
+    }
+
+    @Benchmark
+    public Map<String, Integer> plainPutAll() {
+        Map<String, Integer> map = new HashMap<>();
+        map.putAll(hundred);
+        return map;
+    }
+}
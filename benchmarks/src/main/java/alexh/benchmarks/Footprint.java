@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.benchmarks;
+
+import alexh.Fluent;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Retained heap footprint of each Fluent map variant, & its unmodifiable() view, from 1 to 10^7 entries in powers of
+ * 10, measured by walking the object graph with JOL. Keys & values are excluded, so bytes are the map's own
+ * overhead. Writes CSV, to a file if given, otherwise stdout.
+ * <pre>
+ *  java -Xmx16g -Djdk.attach.allowAttachSelf -cp target/benchmarks.jar alexh.benchmarks.Footprint [maxEntries] [out.csv]
+ * </pre>
+ * EnumMap is measured only up to the 16 ChronoUnit keys.
+ */
+public class Footprint {
+
+    private static final ChronoUnit[] ENUM_KEYS = ChronoUnit.values();
+
+    public static void main(String[] args) throws FileNotFoundException {
+        final int maxEntries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        final PrintStream out = args.length > 1 ? new PrintStream(args[1]) : System.out;
+        try {
+            out.println("map,entries,total_bytes,bytes_per_entry");
+            for (int entries = 1; entries > 0 && entries <= maxEntries; entries *= 10) {
+                measure(out, "HashMap", entries, Integer::valueOf, () -> new Fluent.HashMap<>());
+                measure(out, "LinkedHashMap", entries, Integer::valueOf, () -> new Fluent.LinkedHashMap<>());
+                measure(out, "IdentityHashMap", entries, Integer::valueOf, () -> new Fluent.IdentityHashMap<>());
+                measure(out, "WeakHashMap", entries, Integer::valueOf, () -> new Fluent.WeakHashMap<>());
+                measure(out, "ConcurrentSkipListMap", entries, Integer::valueOf, () -> new Fluent.ConcurrentSkipListMap<>());
+                measure(out, "ConcurrentHashMap", entries, Integer::valueOf, () -> new Fluent.ConcurrentHashMap<>());
+                if (entries <= ENUM_KEYS.length) {
+                    measure(out, "EnumMap", entries, i -> ENUM_KEYS[i], () -> new Fluent.EnumMap<>(ChronoUnit.class));
+                }
+                out.flush();
+            }
+        }
+        finally {
+            if (out != System.out) out.close();
+        }
+    }
+
+    private static <K> void measure(PrintStream out, String name, int entries, IntFunction<K> key,
+                                    Supplier<Fluent.Map<K, Object>> newMap) {
+        final Object[] keys = new Object[entries];
+        final Fluent.Map<K, Object> map = newMap.get();
+        for (int i = 0; i < entries; ++i) {
+            final K k = key.apply(i);
+            keys[i] = k;
+            map.put(k, k);
+        }
+        // keys double as values, a key referenced elsewhere also keeps WeakHashMap entries alive
+        final GraphLayout contents = GraphLayout.parseInstance(keys);
+        row(out, name, entries, GraphLayout.parseInstance(map).subtract(contents));
+        row(out, name + ".unmodifiable", entries, GraphLayout.parseInstance(map.unmodifiable()).subtract(contents));
+    }
+
+    private static void row(PrintStream out, String name, int entries, GraphLayout layout) {
+        final long total = layout.totalSize();
+        out.println(name + ',' + entries + ',' + total + ',' + String.format("%.1f", (double) total / entries));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh.benchmarks;
+
+import alexh.Unchecker;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of the Unchecker wrappers compared with a hand-written try/catch, on the happy path & the failing path.
+ * On failure the checked exception is wrapped in a RuntimeException, or a stackless Unchecker.UncheckedException.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UncheckerBenchmark {
+
+    /** whether parse throws, the exception is allocated per call as a real failure would be */
+    @Param({"false", "true"})
+    boolean failing;
+
+    @Param({"RuntimeException", "stackless"})
+    String wrapping;
+
+    String input = "12345";
+    Function<String, Integer> unchecked;
+    Function<Throwable, ? extends RuntimeException> exTransformer;
+
+    @Setup
+    public void setup() {
+        exTransformer = wrapping.equals("stackless") ? Unchecker.STACKLESS_EXCEPTION_TRANSFORMER : RuntimeException::new;
+        unchecked = Unchecker.uncheck(this::parse, exTransformer);
+    }
+
+    Integer parse(String s) throws IOException {
+        if (failing) throw new IOException("bad input " + s);
+        return s.length();
+    }
+
+    @Benchmark
+    public Object handWritten() {
+        try {
+            return parse(input);
+        }
+        catch (IOException e) {
+            return exTransformer.apply(e);
+        }
+    }
+
+    @Benchmark
+    public Object uncheck() {
+        try {
+            return unchecked.apply(input);
+        }
+        catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object uncheckedGet() {
+        try {
+            return Unchecker.uncheckedGet(() -> parse(input), exTransformer);
+        }
+        catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
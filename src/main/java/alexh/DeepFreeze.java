@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Immutable deep copy of nested Map, List & Set graphs, produced by {@link Fluent#deepFreeze(Object)}. The graph
+ * is walked depth first with an explicit stack, so depth is limited only by heap. Each container is frozen after
+ * its children, which lets structurally equal containers be found by shallow comparison & shared.
+ */
+final class DeepFreeze {
+
+    private static final int MAP = 0, LIST = 1, SET = 2;
+
+    /** Container being frozen */
+    private static final class Frame {
+        final Object source;
+        final int kind;
+        /** children of the source, replaced by their frozen forms in order. Maps: key, value, key, value ... */
+        final Object[] children;
+        int next;
+
+        Frame(Object source, int kind, Object[] children) {
+            this.source = source;
+            this.kind = kind;
+            this.children = children;
+        }
+
+        boolean isKey(int index) {
+            return kind == SET || kind == MAP && (index & 1) == 0;
+        }
+    }
+
+    /**
+     * Frozen contents of a container, compared in order. Container children are already shared when equal, so are
+     * hashed & compared by identity, which keeps each comparison shallow. Other children use equals.
+     */
+    private static final class Contents {
+        final int kind;
+        final Object[] children;
+        final int hash;
+
+        Contents(int kind, Object[] children) {
+            this.kind = kind;
+            this.children = children;
+            int h = kind;
+            for (Object child : children) {
+                h = 31 * h + (kind(child) >= 0 ? System.identityHashCode(child) : Objects.hashCode(child));
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Contents)) return false;
+            final Contents other = (Contents) o;
+            if (kind != other.kind || hash != other.hash || children.length != other.children.length) return false;
+            for (int i = 0; i < children.length; ++i) {
+                final Object child = children[i], otherChild = other.children[i];
+                if (child == otherChild) continue;
+                if (kind(child) >= 0 || kind(otherChild) >= 0 || !Objects.equals(child, otherChild)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final Map<Contents, Object> shared = new HashMap<>();
+    private final Map<String, String> keys = new HashMap<>();
+    /** source containers already frozen, or being frozen if mapped to null */
+    private final Map<Object, Object> frozenSources = new IdentityHashMap<>();
+
+    static Object freeze(Object root) {
+        return kind(root) < 0 ? root : new DeepFreeze().run(root);
+    }
+
+    private static int kind(Object o) {
+        if (o instanceof Map) return MAP;
+        if (o instanceof List) return LIST;
+        if (o instanceof Set) return SET;
+        return -1;
+    }
+
+    private Object run(Object root) {
+        final ArrayDeque<Frame> stack = new ArrayDeque<>();
+        stack.push(frame(root));
+        while (true) {
+            final Frame frame = stack.peek();
+            if (frame.next < frame.children.length) {
+                final Object child = frame.children[frame.next];
+                if (kind(child) >= 0) {
+                    if (!frozenSources.containsKey(child)) {
+                        stack.push(frame(child));
+                        continue;
+                    }
+                    final Object frozen = frozenSources.get(child);
+                    if (frozen == null) throw new IllegalArgumentException("cannot freeze cyclic structure");
+                    frame.children[frame.next] = frozen;
+                }
+                else if (child instanceof String && frame.isKey(frame.next)) {
+                    frame.children[frame.next] = keys.computeIfAbsent((String) child, k -> k);
+                }
+                ++frame.next;
+            }
+            else {
+                stack.pop();
+                final Object frozen = shared.computeIfAbsent(new Contents(frame.kind, frame.children), DeepFreeze::build);
+                frozenSources.put(frame.source, frozen);
+                if (stack.isEmpty()) return frozen;
+                final Frame parent = stack.peek();
+                parent.children[parent.next++] = frozen;
+            }
+        }
+    }
+
+    private Frame frame(Object container) {
+        frozenSources.put(container, null);
+        final int kind = kind(container);
+        if (kind != MAP) return new Frame(container, kind, ((java.util.Collection<?>) container).toArray());
+
+        // toArray takes a consistent snapshot even if a concurrent map changes size meanwhile
+        final Object[] entries = ((Map<?, ?>) container).entrySet().toArray();
+        final Object[] kvs = new Object[entries.length * 2];
+        for (int i = 0; i < entries.length; ++i) {
+            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) entries[i];
+            kvs[i * 2] = entry.getKey();
+            kvs[i * 2 + 1] = entry.getValue();
+        }
+        return new Frame(container, MAP, kvs);
+    }
+
+    private static Object build(Contents contents) {
+        final Object[] children = contents.children;
+        switch (contents.kind) {
+            case MAP:
+                // copied as the map may trim its storage, while contents remain a lookup key
+                return ImmutableMaps.ofKvs(children.clone());
+            case LIST:
+                if (children.length == 0) return Collections.emptyList();
+                if (children.length == 1) return Collections.singletonList(children[0]);
+                return new FrozenList<>(children);
+            default:
+                if (children.length == 0) return Collections.emptySet();
+                if (children.length == 1) return Collections.singleton(children[0]);
+                final Object[] kvs = new Object[children.length * 2];
+                for (int i = 0; i < children.length; ++i) {
+                    kvs[i * 2] = kvs[i * 2 + 1] = children[i];
+                }
+                return ImmutableMaps.ofKvs(kvs).keySet();
+        }
+    }
+
+    /** Immutable list of an array, caching its hash code */
+    static final class FrozenList<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[] elements;
+        private int hashCode;
+
+        FrozenList(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hashCode;
+            if (h == 0) hashCode = h = super.hashCode();
+            return h;
+        }
+    }
+
+    private DeepFreeze() {}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * Explicit release of direct & mapped buffer memory, rather than waiting for the buffer to be garbage collected
+ */
+final class DirectBuffers {
+
+    /** sun.misc.Unsafe#invokeCleaner(ByteBuffer) bound to the Unsafe instance, available on Java 9+ */
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                .unreflect(unsafeClass.getMethod("invokeCleaner", ByteBuffer.class))
+                .bindTo(theUnsafe.get(null));
+        }
+        catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Frees the memory of a direct buffer where supported, otherwise it is freed when the buffer is collected.
+     * The buffer, and any views of it, must not be accessed afterwards.
+     * @param buffer direct buffer
+     */
+    static void release(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null || buffer == null || !buffer.isDirect()) return;
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        }
+        catch (Throwable t) {
+            // views & already released buffers are left to the garbage collector
+        }
+    }
+
+    private DirectBuffers() {}
+}
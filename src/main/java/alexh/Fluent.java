@@ -16,7 +16,54 @@
 package alexh;
 
 import static java.util.Collections.unmodifiableMap;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.DoubleSummaryStatistics;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
 
 /**
  * Container for fluent class implementation that allows declarative object building style.
@@ -79,6 +126,48 @@ public class Fluent {
         default java.util.Map<K, V> unmodifiable() {
             return unmodifiableMap(this);
         }
+
+        /**
+         * Returns an immutable copy of this map. Best used at the end of fluent construction of maps that are
+         * only read afterwards, as unlike {@link #unmodifiable()} the mutable map is not retained. Entries are held
+         * in a single flat array, in this map's iteration order, indexed by an open-addressing hash table. Small maps,
+         * of up to 8 entries, are held without an index and searched linearly.
+         * For example:
+         * <pre>{@code
+         *   Map<String, Integer> frozen = new Fluent.HashMap<String, Integer>()
+         *       .append("one", 1)
+         *       .append("two", 2)
+         *       .append("three", 3)
+         *       .freeze();
+         * }</pre>
+         * Keys of the copy are compared using equals, regardless of how this map compares keys
+         * @return an immutable copy of this map
+         */
+        default java.util.Map<K, V> freeze() {
+            return ImmutableMaps.copyOf(this);
+        }
+    }
+
+    /**
+     * Returns an immutable deep copy of a nested structure of maps, lists & sets, which may be shared freely
+     * between threads. Unlike {@link Map#freeze()} every nested map, list & set is copied, each into the most
+     * compact immutable form available. Structurally equal containers, compared in iteration order, become a
+     * single shared instance, & equal string keys a single string. Other values are retained as-is. The
+     * structure is walked iteratively, so its depth is not limited by the thread's stack.
+     * For example:
+     * <pre>{@code
+     *   Map config = (Map) Fluent.deepFreeze(new Fluent.HashMap<>()
+     *       .append("servers", asList(
+     *           new Fluent.HashMap<>().append("host", "a.example.com").append("port", 8080),
+     *           new Fluent.HashMap<>().append("host", "b.example.com").append("port", 8080))));
+     * }</pre>
+     * Map keys & set elements of the copy are compared using equals, iteration order is retained
+     * @param root map, list or set to freeze, any other object is returned as-is
+     * @return immutable deep copy of the input
+     * @throws IllegalArgumentException if the structure contains itself
+     */
+    public static Object deepFreeze(Object root) {
+        return DeepFreeze.freeze(root);
     }
 
     public static class HashMap<K, V> extends java.util.HashMap<K, V> implements Fluent.Map<K, V> {
@@ -171,5 +260,4217 @@ public class Fluent {
         }
     }
 
+    /**
+     * Fluent int -> Object map, storing keys unboxed in an open-addressing (linear probe) primitive array.
+     * Not thread-safe.
+     * <pre>{@code
+     *  Fluent.IntObjectMap<String> names = new Fluent.IntObjectMap<String>()
+     *      .append(1, "one")
+     *      .append(2, "two");
+     * }</pre>
+     * Use {@link #asMap()} to interoperate with java.util.Map consumers.
+     */
+    public static class IntObjectMap<V> {
+
+        private int[] keys;
+        private Object[] values;
+        private int mask;
+        private int size;
+        private int resizeAt;
+        /** 0 marks an empty slot, so a 0 key is held outside of the table */
+        private boolean hasZeroKey;
+        private V zeroValue;
+        /** count of structural modifications, failing view iterators fast */
+        private int modCount;
+
+        public IntObjectMap(int expectedSize) {
+            allocate(tableSize(expectedSize));
+        }
+
+        public IntObjectMap() {
+            this(DEFAULT_EXPECTED_SIZE);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private int slot(int key) {
+            int slot = mix(key) & mask;
+            int existing;
+            while ((existing = keys[slot]) != 0 && existing != key) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public boolean containsKey(int key) {
+            return key == 0 ? hasZeroKey : keys[slot(key)] != 0;
+        }
+
+        /** @return value mapped to key, or null if absent */
+        public V get(int key) {
+            return getOrDefault(key, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getOrDefault(int key, V defaultValue) {
+            if (key == 0) return hasZeroKey ? zeroValue : defaultValue;
+            final int slot = slot(key);
+            return keys[slot] == 0 ? defaultValue : (V) values[slot];
+        }
+
+        /** @return previous value mapped to key, or null if absent */
+        @SuppressWarnings("unchecked")
+        public V put(int key, V value) {
+            if (key == 0) {
+                final V previous = zeroValue;
+                if (!hasZeroKey) {
+                    ++size;
+                    ++modCount;
+                }
+                hasZeroKey = true;
+                zeroValue = value;
+                return previous;
+            }
+            final int slot = slot(key);
+            if (keys[slot] != 0) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            ++modCount;
+            if (++size > resizeAt) rehash();
+            return null;
+        }
+
+        /** @return removed value mapped to key, or null if absent */
+        public V remove(int key) {
+            if (key == 0) return removeZero();
+            final int slot = slot(key);
+            return keys[slot] == 0 ? null : removeSlot(slot);
+        }
+
+        private V removeZero() {
+            final V previous = zeroValue;
+            if (hasZeroKey) {
+                --size;
+                ++modCount;
+            }
+            hasZeroKey = false;
+            zeroValue = null;
+            return previous;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V removeSlot(int slot) {
+            final V previous = (V) values[slot];
+            --size;
+            ++modCount;
+            // backward shift deletion keeps probe sequences unbroken without tombstones
+            int gap = slot;
+            for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                if (((next - mix(keys[next])) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = 0;
+            values[gap] = null;
+            return previous;
+        }
+
+        public void clear() {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, null);
+            hasZeroKey = false;
+            zeroValue = null;
+            size = 0;
+            ++modCount;
+        }
+
+        private void rehash() {
+            final int[] oldKeys = keys;
+            final Object[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldKeys[i] != 0) {
+                    final int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        /**
+         * Performs the action for each entry without boxing keys
+         * @param action entry action
+         */
+        @SuppressWarnings("unchecked")
+        public void forEach(EntryConsumer<? super V> action) {
+            if (hasZeroKey) action.accept(0, zeroValue);
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != 0) action.accept(keys[i], (V) values[i]);
+            }
+        }
+
+        /**
+         * @see #put(int, Object)
+         * @return self-reference
+         */
+        public IntObjectMap<V> append(int key, V val) {
+            put(key, val);
+            return this;
+        }
+
+        /**
+         * Puts all entries of the input map
+         * @return self-reference
+         */
+        public IntObjectMap<V> appendAll(IntObjectMap<? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        /**
+         * Returns a live java.util.Map view of this map, boxing keys on access.
+         * The view's iterators support removal & fail fast on other structural modification.
+         * @return map view
+         */
+        public Fluent.Map<Integer, V> asMap() {
+            return new PrimitiveMapView<Integer, V>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean containsKey(Object key) {
+                    return key instanceof Integer && IntObjectMap.this.containsKey((Integer) key);
+                }
+
+                @Override
+                public V get(Object key) {
+                    return key instanceof Integer ? IntObjectMap.this.get((Integer) key) : null;
+                }
+
+                @Override
+                public V put(Integer key, V value) {
+                    return IntObjectMap.this.put(key, value);
+                }
+
+                @Override
+                public V remove(Object key) {
+                    return key instanceof Integer ? IntObjectMap.this.remove((Integer) key) : null;
+                }
+
+                @Override
+                public void clear() {
+                    IntObjectMap.this.clear();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                Iterator<java.util.Map.Entry<Integer, V>> entryIterator() {
+                    return new SlotIterator<java.util.Map.Entry<Integer, V>>(keys.length, hasZeroKey) {
+                        @Override
+                        boolean occupied(int slot) {
+                            return keys[slot] != 0;
+                        }
+
+                        @Override
+                        java.util.Map.Entry<Integer, V> zeroEntry() {
+                            return new AbstractMap.SimpleImmutableEntry<>(0, zeroValue);
+                        }
+
+                        @Override
+                        java.util.Map.Entry<Integer, V> entry(int slot) {
+                            return new AbstractMap.SimpleImmutableEntry<>(keys[slot], (V) values[slot]);
+                        }
+
+                        @Override
+                        int modCount() {
+                            return modCount;
+                        }
+
+                        @Override
+                        void removeEntry(int slot) {
+                            removeSlot(slot);
+                        }
+
+                        @Override
+                        void removeZeroEntry() {
+                            removeZero();
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntObjectMap && asMap().equals(((IntObjectMap<?>) o).asMap());
+        }
+
+        @Override
+        public int hashCode() {
+            return asMap().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return asMap().toString();
+        }
+
+        /** Operation accepting an unboxed int key & value */
+        @FunctionalInterface
+        public interface EntryConsumer<V> {
+            void accept(int key, V value);
+        }
+    }
+
+    /**
+     * Fluent long -> long map, storing keys & values unboxed in open-addressing (linear probe) primitive arrays.
+     * Absent keys read as 0, making it suitable for counters via {@link #addTo(long, long)}. Not thread-safe.
+     * <pre>{@code
+     *  Fluent.LongLongMap counts = new Fluent.LongLongMap()
+     *      .append(123L, 1L)
+     *      .append(456L, 2L);
+     * }</pre>
+     * Use {@link #asMap()} to interoperate with java.util.Map consumers.
+     */
+    public static class LongLongMap {
+
+        private long[] keys;
+        private long[] values;
+        private int mask;
+        private int size;
+        private int resizeAt;
+        /** 0 marks an empty slot, so a 0 key is held outside of the table */
+        private boolean hasZeroKey;
+        private long zeroValue;
+        /** count of structural modifications, failing view iterators fast */
+        private int modCount;
+
+        public LongLongMap(int expectedSize) {
+            allocate(tableSize(expectedSize));
+        }
+
+        public LongLongMap() {
+            this(DEFAULT_EXPECTED_SIZE);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private int slot(long key) {
+            int slot = mix(key) & mask;
+            long existing;
+            while ((existing = keys[slot]) != 0 && existing != key) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public boolean containsKey(long key) {
+            return key == 0 ? hasZeroKey : keys[slot(key)] != 0;
+        }
+
+        /** @return value mapped to key, or 0 if absent */
+        public long get(long key) {
+            return getOrDefault(key, 0);
+        }
+
+        public long getOrDefault(long key, long defaultValue) {
+            if (key == 0) return hasZeroKey ? zeroValue : defaultValue;
+            final int slot = slot(key);
+            return keys[slot] == 0 ? defaultValue : values[slot];
+        }
+
+        /** @return previous value mapped to key, or 0 if absent */
+        public long put(long key, long value) {
+            if (key == 0) {
+                final long previous = zeroValue;
+                if (!hasZeroKey) {
+                    ++size;
+                    ++modCount;
+                }
+                hasZeroKey = true;
+                zeroValue = value;
+                return previous;
+            }
+            final int slot = slot(key);
+            if (keys[slot] != 0) {
+                final long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            ++modCount;
+            if (++size > resizeAt) rehash();
+            return 0;
+        }
+
+        /**
+         * Adds delta to the value mapped to key, absent keys are treated as mapped to 0
+         * @return new value mapped to key
+         */
+        public long addTo(long key, long delta) {
+            if (key == 0) {
+                if (!hasZeroKey) {
+                    ++size;
+                    ++modCount;
+                }
+                hasZeroKey = true;
+                return zeroValue += delta;
+            }
+            final int slot = slot(key);
+            if (keys[slot] != 0) return values[slot] += delta;
+            keys[slot] = key;
+            values[slot] = delta;
+            ++modCount;
+            if (++size > resizeAt) rehash();
+            return delta;
+        }
+
+        /** @return removed value mapped to key, or 0 if absent */
+        public long remove(long key) {
+            if (key == 0) return removeZero();
+            final int slot = slot(key);
+            return keys[slot] == 0 ? 0 : removeSlot(slot);
+        }
+
+        private long removeZero() {
+            final long previous = zeroValue;
+            if (hasZeroKey) {
+                --size;
+                ++modCount;
+            }
+            hasZeroKey = false;
+            zeroValue = 0;
+            return previous;
+        }
+
+        private long removeSlot(int slot) {
+            final long previous = values[slot];
+            --size;
+            ++modCount;
+            // backward shift deletion keeps probe sequences unbroken without tombstones
+            int gap = slot;
+            for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                if (((next - mix(keys[next])) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = 0;
+            values[gap] = 0;
+            return previous;
+        }
+
+        public void clear() {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, 0);
+            hasZeroKey = false;
+            zeroValue = 0;
+            size = 0;
+            ++modCount;
+        }
+
+        private void rehash() {
+            final long[] oldKeys = keys;
+            final long[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldKeys[i] != 0) {
+                    final int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        /**
+         * Performs the action for each entry without boxing
+         * @param action entry action
+         */
+        public void forEach(EntryConsumer action) {
+            if (hasZeroKey) action.accept(0, zeroValue);
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != 0) action.accept(keys[i], values[i]);
+            }
+        }
+
+        /**
+         * @see #put(long, long)
+         * @return self-reference
+         */
+        public LongLongMap append(long key, long val) {
+            put(key, val);
+            return this;
+        }
+
+        /**
+         * Puts all entries of the input map
+         * @return self-reference
+         */
+        public LongLongMap appendAll(LongLongMap map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        /**
+         * Returns a live java.util.Map view of this map, boxing keys & values on access.
+         * The view's iterators support removal & fail fast on other structural modification.
+         * @return map view
+         */
+        public Fluent.Map<Long, Long> asMap() {
+            return new PrimitiveMapView<Long, Long>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean containsKey(Object key) {
+                    return key instanceof Long && LongLongMap.this.containsKey((Long) key);
+                }
+
+                @Override
+                public Long get(Object key) {
+                    return containsKey(key) ? LongLongMap.this.get((Long) key) : null;
+                }
+
+                @Override
+                public Long put(Long key, Long value) {
+                    final Long previous = get(key);
+                    LongLongMap.this.put(key, value);
+                    return previous;
+                }
+
+                @Override
+                public Long remove(Object key) {
+                    return containsKey(key) ? LongLongMap.this.remove((Long) key) : null;
+                }
+
+                @Override
+                public void clear() {
+                    LongLongMap.this.clear();
+                }
+
+                @Override
+                Iterator<java.util.Map.Entry<Long, Long>> entryIterator() {
+                    return new SlotIterator<java.util.Map.Entry<Long, Long>>(keys.length, hasZeroKey) {
+                        @Override
+                        boolean occupied(int slot) {
+                            return keys[slot] != 0;
+                        }
+
+                        @Override
+                        java.util.Map.Entry<Long, Long> zeroEntry() {
+                            return new AbstractMap.SimpleImmutableEntry<>(0L, zeroValue);
+                        }
+
+                        @Override
+                        java.util.Map.Entry<Long, Long> entry(int slot) {
+                            return new AbstractMap.SimpleImmutableEntry<>(keys[slot], values[slot]);
+                        }
+
+                        @Override
+                        int modCount() {
+                            return modCount;
+                        }
+
+                        @Override
+                        void removeEntry(int slot) {
+                            removeSlot(slot);
+                        }
+
+                        @Override
+                        void removeZeroEntry() {
+                            removeZero();
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LongLongMap && asMap().equals(((LongLongMap) o).asMap());
+        }
+
+        @Override
+        public int hashCode() {
+            return asMap().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return asMap().toString();
+        }
+
+        /** Operation accepting an unboxed long key & value */
+        @FunctionalInterface
+        public interface EntryConsumer {
+            void accept(long key, long value);
+        }
+    }
+
+    /**
+     * Fluent Object -> int map, storing values unboxed in open-addressing (linear probe) arrays.
+     * Absent keys read as 0, making it suitable for counters via {@link #addTo(Object, int)}. Not thread-safe.
+     * <pre>{@code
+     *  Fluent.ObjectIntMap<String> ages = new Fluent.ObjectIntMap<String>()
+     *      .append("Darrel", 33)
+     *      .append("John", 29);
+     * }</pre>
+     * Use {@link #asMap()} to interoperate with java.util.Map consumers.
+     */
+    public static class ObjectIntMap<K> {
+
+        private Object[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+        private int resizeAt;
+        /** null marks an empty slot, so a null key is held outside of the table */
+        private boolean hasNullKey;
+        private int nullValue;
+        /** count of structural modifications, failing view iterators fast */
+        private int modCount;
+
+        public ObjectIntMap(int expectedSize) {
+            allocate(tableSize(expectedSize));
+        }
+
+        public ObjectIntMap() {
+            this(DEFAULT_EXPECTED_SIZE);
+        }
+
+        private void allocate(int capacity) {
+            keys = new Object[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private int slot(Object key) {
+            int slot = mix(key.hashCode()) & mask;
+            Object existing;
+            while ((existing = keys[slot]) != null && !existing.equals(key)) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public boolean containsKey(Object key) {
+            return key == null ? hasNullKey : keys[slot(key)] != null;
+        }
+
+        /** @return value mapped to key, or 0 if absent */
+        public int get(Object key) {
+            return getOrDefault(key, 0);
+        }
+
+        public int getOrDefault(Object key, int defaultValue) {
+            if (key == null) return hasNullKey ? nullValue : defaultValue;
+            final int slot = slot(key);
+            return keys[slot] == null ? defaultValue : values[slot];
+        }
+
+        /** @return previous value mapped to key, or 0 if absent */
+        public int put(K key, int value) {
+            if (key == null) {
+                final int previous = nullValue;
+                if (!hasNullKey) {
+                    ++size;
+                    ++modCount;
+                }
+                hasNullKey = true;
+                nullValue = value;
+                return previous;
+            }
+            final int slot = slot(key);
+            if (keys[slot] != null) {
+                final int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            ++modCount;
+            if (++size > resizeAt) rehash();
+            return 0;
+        }
+
+        /**
+         * Adds delta to the value mapped to key, absent keys are treated as mapped to 0
+         * @return new value mapped to key
+         */
+        public int addTo(K key, int delta) {
+            if (key == null) {
+                if (!hasNullKey) {
+                    ++size;
+                    ++modCount;
+                }
+                hasNullKey = true;
+                return nullValue += delta;
+            }
+            final int slot = slot(key);
+            if (keys[slot] != null) return values[slot] += delta;
+            keys[slot] = key;
+            values[slot] = delta;
+            ++modCount;
+            if (++size > resizeAt) rehash();
+            return delta;
+        }
+
+        /** @return removed value mapped to key, or 0 if absent */
+        public int remove(Object key) {
+            if (key == null) return removeNull();
+            final int slot = slot(key);
+            return keys[slot] == null ? 0 : removeSlot(slot);
+        }
+
+        private int removeNull() {
+            final int previous = nullValue;
+            if (hasNullKey) {
+                --size;
+                ++modCount;
+            }
+            hasNullKey = false;
+            nullValue = 0;
+            return previous;
+        }
+
+        private int removeSlot(int slot) {
+            final int previous = values[slot];
+            --size;
+            ++modCount;
+            // backward shift deletion keeps probe sequences unbroken without tombstones
+            int gap = slot;
+            for (int next = (gap + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+                if (((next - mix(keys[next].hashCode())) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = null;
+            values[gap] = 0;
+            return previous;
+        }
+
+        public void clear() {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, 0);
+            hasNullKey = false;
+            nullValue = 0;
+            size = 0;
+            ++modCount;
+        }
+
+        private void rehash() {
+            final Object[] oldKeys = keys;
+            final int[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldKeys[i] != null) {
+                    final int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        /**
+         * Performs the action for each entry without boxing values
+         * @param action entry action
+         */
+        @SuppressWarnings("unchecked")
+        public void forEach(ObjIntConsumer<? super K> action) {
+            if (hasNullKey) action.accept(null, nullValue);
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != null) action.accept((K) keys[i], values[i]);
+            }
+        }
+
+        /**
+         * @see #put(Object, int)
+         * @return self-reference
+         */
+        public ObjectIntMap<K> append(K key, int val) {
+            put(key, val);
+            return this;
+        }
+
+        /**
+         * Puts all entries of the input map
+         * @return self-reference
+         */
+        public ObjectIntMap<K> appendAll(ObjectIntMap<? extends K> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        /**
+         * Returns a live java.util.Map view of this map, boxing values on access.
+         * The view's iterators support removal & fail fast on other structural modification.
+         * @return map view
+         */
+        public Fluent.Map<K, Integer> asMap() {
+            return new PrimitiveMapView<K, Integer>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean containsKey(Object key) {
+                    return ObjectIntMap.this.containsKey(key);
+                }
+
+                @Override
+                public Integer get(Object key) {
+                    return containsKey(key) ? ObjectIntMap.this.get(key) : null;
+                }
+
+                @Override
+                public Integer put(K key, Integer value) {
+                    final Integer previous = get(key);
+                    ObjectIntMap.this.put(key, value);
+                    return previous;
+                }
+
+                @Override
+                public Integer remove(Object key) {
+                    return containsKey(key) ? ObjectIntMap.this.remove(key) : null;
+                }
+
+                @Override
+                public void clear() {
+                    ObjectIntMap.this.clear();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                Iterator<java.util.Map.Entry<K, Integer>> entryIterator() {
+                    return new SlotIterator<java.util.Map.Entry<K, Integer>>(keys.length, hasNullKey) {
+                        @Override
+                        boolean occupied(int slot) {
+                            return keys[slot] != null;
+                        }
+
+                        @Override
+                        java.util.Map.Entry<K, Integer> zeroEntry() {
+                            return new AbstractMap.SimpleImmutableEntry<>(null, nullValue);
+                        }
+
+                        @Override
+                        java.util.Map.Entry<K, Integer> entry(int slot) {
+                            return new AbstractMap.SimpleImmutableEntry<>((K) keys[slot], values[slot]);
+                        }
+
+                        @Override
+                        int modCount() {
+                            return modCount;
+                        }
+
+                        @Override
+                        void removeEntry(int slot) {
+                            removeSlot(slot);
+                        }
+
+                        @Override
+                        void removeZeroEntry() {
+                            removeNull();
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ObjectIntMap && asMap().equals(((ObjectIntMap<?>) o).asMap());
+        }
+
+        @Override
+        public int hashCode() {
+            return asMap().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return asMap().toString();
+        }
+    }
+
+    /**
+     * Binary encoding of keys or values held outside of the java heap, see {@link OffHeapMap}.
+     * Encodings must be deterministic, as keys are compared by their encoded bytes.
+     */
+    public interface Codec<T> {
+
+        Codec<String> STRING = of(s -> s.getBytes(StandardCharsets.UTF_8), Codec::decodeString);
+        Codec<Integer> INTEGER = of(i -> ByteBuffer.allocate(4).putInt(i).array(), bytes -> bytes.getInt(0));
+        Codec<Long> LONG = of(l -> ByteBuffer.allocate(8).putLong(l).array(), bytes -> bytes.getLong(0));
+        Codec<byte[]> BYTES = of(bytes -> bytes, Codec::decodeBytes);
+
+        byte[] encode(T value);
+
+        /**
+         * @param bytes buffer holding exactly the encoded bytes, only valid for the duration of the call
+         *              so must not be retained
+         * @return decoded value
+         */
+        T decode(ByteBuffer bytes);
+
+        static <T> Codec<T> of(Function<? super T, byte[]> encoder, Function<ByteBuffer, ? extends T> decoder) {
+            return new Codec<T>() {
+                @Override
+                public byte[] encode(T value) {
+                    return encoder.apply(value);
+                }
+
+                @Override
+                public T decode(ByteBuffer bytes) {
+                    return decoder.apply(bytes);
+                }
+            };
+        }
+
+        static byte[] decodeBytes(ByteBuffer bytes) {
+            final byte[] decoded = new byte[bytes.remaining()];
+            bytes.get(decoded);
+            return decoded;
+        }
+
+        static String decodeString(ByteBuffer bytes) {
+            return new String(decodeBytes(bytes), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Fluent map holding encoded keys & values in direct buffer memory outside of the java heap, so large maps
+     * add nothing for the garbage collector to scan. Records are appended to direct memory chunks & located with
+     * an open-addressing hash index, itself held in direct memory. Keys are compared by their encoded bytes.
+     * <pre>{@code
+     *  try (Fluent.OffHeapMap<String, Long> ids = new Fluent.OffHeapMap<>(Fluent.Codec.STRING, Fluent.Codec.LONG)) {
+     *      ids.append("one", 1L)
+     *          .append("two", 2L);
+     *      // ...
+     *  }
+     * }</pre>
+     * Overwritten & removed records are reclaimed by compaction, run automatically once they outweigh the live
+     * records, or on demand with {@link #compact()}. {@link #close()} frees all memory.
+     * Null keys & values are not supported. Not thread-safe, though concurrent reads are safe without writes.
+     * {@link #compact()} & {@link #close()} are writes that free direct memory, a read racing either may touch
+     * freed memory & crash the JVM rather than throw, so they must be externally synchronized with all readers.
+     */
+    public static class OffHeapMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V>, AutoCloseable {
+
+        private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+        /** index slot: int hash, long record address + 1, with 0 marking an empty slot */
+        private static final int SLOT_BYTES = 12;
+        /** record: int key length, int value length, key bytes, value bytes */
+        private static final int RECORD_HEADER_BYTES = 8;
+
+        private final Codec<K> keyCodec;
+        private final Codec<V> valueCodec;
+        private final int chunkSize;
+        private final int initialCapacity;
+
+        private List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer index;
+        private int mask;
+        private int size;
+        private int resizeAt;
+        private long recordBytes;
+        private long garbageBytes;
+        private boolean closed;
+        /** count of structural modifications, failing iterators fast */
+        private int modCount;
+
+        /**
+         * @param keyCodec key encoding
+         * @param valueCodec value encoding
+         * @param expectedSize expected number of entries, used to size the index
+         * @param chunkSize bytes of direct memory allocated at a time for records
+         */
+        public OffHeapMap(Codec<K> keyCodec, Codec<V> valueCodec, int expectedSize, int chunkSize) {
+            if (chunkSize <= RECORD_HEADER_BYTES) throw new IllegalArgumentException("chunkSize too small: " + chunkSize);
+            this.keyCodec = Objects.requireNonNull(keyCodec);
+            this.valueCodec = Objects.requireNonNull(valueCodec);
+            this.chunkSize = chunkSize;
+            this.initialCapacity = tableSize(expectedSize);
+            allocateIndex(initialCapacity);
+        }
+
+        public OffHeapMap(Codec<K> keyCodec, Codec<V> valueCodec, int expectedSize) {
+            this(keyCodec, valueCodec, expectedSize, DEFAULT_CHUNK_SIZE);
+        }
+
+        public OffHeapMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+            this(keyCodec, valueCodec, DEFAULT_EXPECTED_SIZE);
+        }
+
+        private void allocateIndex(int capacity) {
+            if (capacity > Integer.MAX_VALUE / SLOT_BYTES) throw new IllegalStateException("OffHeapMap index is full");
+            index = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+            mask = capacity - 1;
+            resizeAt = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private void ensureOpen() {
+            if (closed) throw new IllegalStateException("OffHeapMap is closed");
+        }
+
+        private static int hash(byte[] bytes) {
+            return mix(Arrays.hashCode(bytes));
+        }
+
+        private long address(int slot) {
+            return index.getLong(slot * SLOT_BYTES + 4) - 1;
+        }
+
+        private void setSlot(int slot, int hash, long address) {
+            index.putInt(slot * SLOT_BYTES, hash);
+            index.putLong(slot * SLOT_BYTES + 4, address + 1);
+        }
+
+        /** @return slot holding the key, or the empty slot it would be inserted into */
+        private int findSlot(byte[] key, int hash) {
+            int slot = hash & mask;
+            long address;
+            while ((address = address(slot)) >= 0) {
+                if (index.getInt(slot * SLOT_BYTES) == hash && keyEquals(address, key)) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private ByteBuffer chunk(long address) {
+            return chunks.get((int) (address >>> 32));
+        }
+
+        private boolean keyEquals(long address, byte[] key) {
+            final ByteBuffer chunk = chunk(address);
+            final int offset = (int) address;
+            if (chunk.getInt(offset) != key.length) return false;
+            final int keyStart = offset + RECORD_HEADER_BYTES;
+            for (int i = 0; i < key.length; ++i) {
+                if (chunk.get(keyStart + i) != key[i]) return false;
+            }
+            return true;
+        }
+
+        private int recordLength(long address) {
+            final ByteBuffer chunk = chunk(address);
+            final int offset = (int) address;
+            return RECORD_HEADER_BYTES + chunk.getInt(offset) + chunk.getInt(offset + 4);
+        }
+
+        private static ByteBuffer slice(ByteBuffer chunk, int start, int end) {
+            final ByteBuffer view = chunk.duplicate();
+            ((Buffer) view).limit(end);
+            ((Buffer) view).position(start);
+            return view.slice();
+        }
+
+        private K decodeKey(long address) {
+            final ByteBuffer chunk = chunk(address);
+            final int keyStart = (int) address + RECORD_HEADER_BYTES;
+            return keyCodec.decode(slice(chunk, keyStart, keyStart + chunk.getInt((int) address)));
+        }
+
+        private V decodeValue(long address) {
+            final ByteBuffer chunk = chunk(address);
+            final int offset = (int) address;
+            final int valueStart = offset + RECORD_HEADER_BYTES + chunk.getInt(offset);
+            return valueCodec.decode(slice(chunk, valueStart, valueStart + chunk.getInt(offset + 4)));
+        }
+
+        /** @return address of the record, the chunk index in the high 32 bits & offset in the low */
+        private long writeRecord(byte[] key, byte[] value) {
+            final int length = RECORD_HEADER_BYTES + key.length + value.length;
+            if (length < 0) throw new IllegalArgumentException("OffHeapMap record too large");
+            ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (chunk == null || chunk.remaining() < length) {
+                chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, length));
+                chunks.add(chunk);
+            }
+            final int offset = chunk.position();
+            chunk.putInt(key.length).putInt(value.length).put(key).put(value);
+            recordBytes += length;
+            return ((long) (chunks.size() - 1) << 32) | offset;
+        }
+
+        /** @return encoded key, or null if the key cannot be held by this map */
+        @SuppressWarnings("unchecked")
+        private byte[] encodeKey(Object key) {
+            if (key == null) return null;
+            try {
+                return keyCodec.encode((K) key);
+            }
+            catch (ClassCastException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public OffHeapMap<K, V> append(K key, V val) {
+            put(key, val);
+            return this;
+        }
+
+        @Override
+        public OffHeapMap<K, V> appendAll(java.util.Map<? extends K, ? extends V> map) {
+            putAll(map);
+            return this;
+        }
+
+        @Override
+        public OffHeapMap<K, V> append(java.util.Map.Entry<? extends K, ? extends V> entry) {
+            return append(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public int size() {
+            ensureOpen();
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            ensureOpen();
+            final byte[] bytes = encodeKey(key);
+            return bytes != null && address(findSlot(bytes, hash(bytes))) >= 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            ensureOpen();
+            final byte[] bytes = encodeKey(key);
+            if (bytes == null) return null;
+            final long address = address(findSlot(bytes, hash(bytes)));
+            return address < 0 ? null : decodeValue(address);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            ensureOpen();
+            final byte[] keyBytes = keyCodec.encode(Objects.requireNonNull(key));
+            final byte[] valueBytes = valueCodec.encode(Objects.requireNonNull(value));
+            final int hash = hash(keyBytes);
+            final int slot = findSlot(keyBytes, hash);
+            final long existing = address(slot);
+
+            V previous = null;
+            if (existing >= 0) {
+                previous = decodeValue(existing);
+                garbageBytes += recordLength(existing);
+            }
+            setSlot(slot, hash, writeRecord(keyBytes, valueBytes));
+
+            if (existing < 0) {
+                ++modCount;
+                if (++size > resizeAt) rehash();
+            }
+            else compactIfWasteful();
+            return previous;
+        }
+
+        @Override
+        public V remove(Object key) {
+            ensureOpen();
+            final byte[] bytes = encodeKey(key);
+            if (bytes == null) return null;
+            final int slot = findSlot(bytes, hash(bytes));
+            return address(slot) < 0 ? null : removeSlot(slot);
+        }
+
+        private V removeSlot(int slot) {
+            final long address = address(slot);
+            final V previous = decodeValue(address);
+            garbageBytes += recordLength(address);
+            --size;
+            ++modCount;
+            int gap = slot;
+            // backward shift deletion keeps probe sequences unbroken without tombstones
+            for (int next = (gap + 1) & mask; address(next) >= 0; next = (next + 1) & mask) {
+                final int hash = index.getInt(next * SLOT_BYTES);
+                if (((next - hash) & mask) >= ((next - gap) & mask)) {
+                    setSlot(gap, hash, address(next));
+                    gap = next;
+                }
+            }
+            setSlot(gap, 0, -1);
+            compactIfWasteful();
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            ensureOpen();
+            releaseAll();
+            chunks = new ArrayList<>();
+            allocateIndex(initialCapacity);
+            size = 0;
+            recordBytes = 0;
+            garbageBytes = 0;
+            ++modCount;
+        }
+
+        private void rehash() {
+            final ByteBuffer oldIndex = index;
+            final int oldCapacity = mask + 1;
+            allocateIndex(oldCapacity * 2);
+            for (int oldSlot = 0; oldSlot < oldCapacity; ++oldSlot) {
+                final long address = oldIndex.getLong(oldSlot * SLOT_BYTES + 4) - 1;
+                if (address < 0) continue;
+                final int hash = oldIndex.getInt(oldSlot * SLOT_BYTES);
+                int slot = hash & mask;
+                while (address(slot) >= 0) slot = (slot + 1) & mask;
+                setSlot(slot, hash, address);
+            }
+            DirectBuffers.release(oldIndex);
+        }
+
+        private void compactIfWasteful() {
+            if (garbageBytes > chunkSize && garbageBytes > recordBytes / 2) compact();
+        }
+
+        /**
+         * Rewrites live records into new direct memory, freeing the space of overwritten & removed records.
+         * Must not run concurrently with reads, see the class documentation.
+         */
+        public void compact() {
+            ensureOpen();
+            final List<ByteBuffer> oldChunks = chunks;
+            chunks = new ArrayList<>();
+            recordBytes = 0;
+            garbageBytes = 0;
+            for (int slot = 0; slot <= mask; ++slot) {
+                final long address = address(slot);
+                if (address < 0) continue;
+                final ByteBuffer oldChunk = oldChunks.get((int) (address >>> 32));
+                final int offset = (int) address;
+                final int keyLength = oldChunk.getInt(offset);
+                final int valueStart = offset + RECORD_HEADER_BYTES + keyLength;
+                final byte[] key = Codec.decodeBytes(slice(oldChunk, offset + RECORD_HEADER_BYTES, valueStart));
+                final byte[] value = Codec.decodeBytes(slice(oldChunk, valueStart, valueStart + oldChunk.getInt(offset + 4)));
+                setSlot(slot, index.getInt(slot * SLOT_BYTES), writeRecord(key, value));
+            }
+            oldChunks.forEach(DirectBuffers::release);
+        }
+
+        /**
+         * @return bytes of direct memory currently allocated by this map, for the index & records
+         */
+        public long memoryUsage() {
+            ensureOpen();
+            long bytes = index.capacity();
+            for (ByteBuffer chunk : chunks) bytes += chunk.capacity();
+            return bytes;
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            ensureOpen();
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    ensureOpen();
+                    return new SlotIterator<java.util.Map.Entry<K, V>>(mask + 1, false) {
+                        @Override
+                        boolean occupied(int slot) {
+                            return address(slot) >= 0;
+                        }
+
+                        @Override
+                        java.util.Map.Entry<K, V> zeroEntry() {
+                            throw new NoSuchElementException();
+                        }
+
+                        @Override
+                        java.util.Map.Entry<K, V> entry(int slot) {
+                            ensureOpen();
+                            final long address = address(slot);
+                            return new AbstractMap.SimpleImmutableEntry<>(decodeKey(address), decodeValue(address));
+                        }
+
+                        @Override
+                        int modCount() {
+                            return modCount;
+                        }
+
+                        @Override
+                        void removeEntry(int slot) {
+                            ensureOpen();
+                            removeSlot(slot);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return OffHeapMap.this.size();
+                }
+            };
+        }
+
+        /** Replaces through {@link #put(Object, Object)}, entries are decoded snapshots of the records */
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            Objects.requireNonNull(function);
+            for (java.util.Map.Entry<K, V> entry : entrySet()) {
+                put(entry.getKey(), function.apply(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        /**
+         * Frees all direct memory held by this map, further use of the map will throw IllegalStateException.
+         * Repeated calls have no effect. Must not run concurrently with reads, see the class documentation.
+         */
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            releaseAll();
+            chunks = null;
+            index = null;
+        }
+
+        private void releaseAll() {
+            chunks.forEach(DirectBuffers::release);
+            DirectBuffers.release(index);
+        }
+    }
+
+    /**
+     * Read-only fluent map served directly from a memory mapped file, written by
+     * {@link #write(java.util.Map, Path, Codec, Codec)}. Opening a file reads no entries, lookups locate a
+     * record with a minimal perfect hash of the encoded key & only decode the value, or with
+     * {@link #getBytes(Object)} return a view of the encoded value without copying. Several processes mapping
+     * the same file share its page cache.
+     * <pre>{@code
+     *  Fluent.MappedMap.write(lookupTable, path, Fluent.Codec.STRING, Fluent.Codec.LONG);
+     *  // later, possibly in another process
+     *  try (Fluent.MappedMap<String, Long> lookup = Fluent.MappedMap.open(path, Fluent.Codec.STRING, Fluent.Codec.LONG)) {
+     *      Long id = lookup.get("some key");
+     *  }
+     * }</pre>
+     * Files are limited to 2GB. Safe for concurrent reads, modification throws UnsupportedOperationException.
+     * Reads take no lock, so {@link #close()}, which unmaps the file, must be externally synchronized with all
+     * readers: a read racing close may touch unmapped memory & crash the JVM rather than throw.
+     */
+    public static class MappedMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V>, AutoCloseable {
+
+        private static final int MAGIC = 0x464c4d50;
+        private static final int VERSION = 1;
+        /** header: int magic, int version, int size, int bucket count */
+        private static final int HEADER_BYTES = 16;
+        /** record: int key length, int value length, key bytes, value bytes */
+        private static final int RECORD_HEADER_BYTES = 8;
+        /** average keys per perfect hash bucket */
+        private static final int BUCKET_SIZE = 3;
+        private static final int MAX_SEED = 1 << 24;
+
+        private final Codec<K> keyCodec;
+        private final Codec<V> valueCodec;
+        private final int size;
+        private final int buckets;
+        private final int slotsStart;
+        private ByteBuffer buffer;
+
+        private MappedMap(ByteBuffer buffer, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not a MappedMap file");
+            if (buffer.getInt(4) != VERSION)
+                throw new IOException("Unsupported MappedMap version " + buffer.getInt(4));
+            this.buffer = buffer;
+            this.keyCodec = Objects.requireNonNull(keyCodec);
+            this.valueCodec = Objects.requireNonNull(valueCodec);
+            this.size = buffer.getInt(8);
+            this.buckets = buffer.getInt(12);
+            this.slotsStart = HEADER_BYTES + buckets * 4;
+        }
+
+        /**
+         * Memory maps a file written by {@link #write(java.util.Map, Path, Codec, Codec)}
+         * @param file map file
+         * @param keyCodec key encoding, as used to write the file
+         * @param valueCodec value encoding, as used to write the file
+         * @return read-only map of the file contents
+         * @throws IOException on failing to read/map the file or if it is not a valid map file
+         */
+        public static <K, V> MappedMap<K, V> open(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) throw new IOException("MappedMap file too large: " + file);
+                return new MappedMap<>(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), keyCodec, valueCodec);
+            }
+        }
+
+        /**
+         * Writes the entries of a map to a file readable with {@link #open(Path, Codec, Codec)}. The file is
+         * written to a temporary sibling & moved into place, so readers of a previous version are unaffected.
+         * @param map entries to write, null keys & values are not supported
+         * @param file map file
+         * @param keyCodec key encoding
+         * @param valueCodec value encoding
+         * @throws IOException on failing to write the file
+         */
+        public static <K, V> void write(java.util.Map<? extends K, ? extends V> map, Path file,
+                                        Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+            final Object[] entries = map.entrySet().toArray();
+            final int size = entries.length;
+            final int buckets = size / BUCKET_SIZE + 1;
+            final long[] hashes = new long[size];
+            final int[] offsets = new int[size];
+
+            final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+                // records follow the header, seeds & slots, which are written once the records are placed
+                long position = HEADER_BYTES + 4L * buckets + 4L * size;
+                final ByteBuffer out = ByteBuffer.allocate(1 << 16);
+                for (int i = 0; i < size; ++i) {
+                    final java.util.Map.Entry<?, ?> entry = (java.util.Map.Entry<?, ?>) entries[i];
+                    @SuppressWarnings("unchecked")
+                    final byte[] key = keyCodec.encode((K) Objects.requireNonNull(entry.getKey()));
+                    @SuppressWarnings("unchecked")
+                    final byte[] value = valueCodec.encode((V) Objects.requireNonNull(entry.getValue()));
+                    final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + key.length + value.length);
+                    record.putInt(key.length).putInt(value.length).put(key).put(value);
+                    ((Buffer) record).flip();
+
+                    if (record.remaining() > out.remaining()) position += flush(channel, out, position);
+                    final long recordPosition = position + out.position();
+                    if (recordPosition + record.remaining() > Integer.MAX_VALUE)
+                        throw new IOException("MappedMap file too large: " + file);
+                    hashes[i] = hash(key);
+                    offsets[i] = (int) recordPosition;
+                    if (record.remaining() > out.remaining()) position += writeFully(channel, record, position);
+                    else out.put(record);
+                }
+                flush(channel, out, position);
+
+                final int[] seeds = new int[buckets];
+                final int[] slotEntries = perfectHash(hashes, buckets, seeds);
+                final ByteBuffer index = ByteBuffer.allocate(HEADER_BYTES + 4 * buckets + 4 * size);
+                index.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(buckets);
+                for (int seed : seeds) index.putInt(seed);
+                for (int entry : slotEntries) index.putInt(offsets[entry]);
+                ((Buffer) index).flip();
+                writeFully(channel, index, 0);
+                channel.force(false);
+            }
+            catch (IOException | RuntimeException | Error e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static int flush(FileChannel channel, ByteBuffer out, long position) throws IOException {
+            ((Buffer) out).flip();
+            final int written = writeFully(channel, out, position);
+            ((Buffer) out).clear();
+            return written;
+        }
+
+        private static int writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+            final int length = bytes.remaining();
+            int written = 0;
+            while (written < length) written += channel.write(bytes, position + written);
+            return written;
+        }
+
+        /**
+         * Hash & displace minimal perfect hash construction. Keys are grouped into buckets, then largest bucket
+         * first a seed is searched for that hashes all of a bucket's keys to free slots. Single key buckets simply
+         * take a remaining free slot, recorded as a negative seed.
+         * @param hashes key hashes
+         * @param buckets bucket count
+         * @param seeds output per bucket seeds
+         * @return entry index of each slot
+         */
+        private static int[] perfectHash(long[] hashes, int buckets, int[] seeds) {
+            final int size = hashes.length;
+            final int[] bucketSizes = new int[buckets];
+            for (long hash : hashes) ++bucketSizes[bucket(hash, buckets)];
+            // entries grouped by bucket, counting sort style
+            final int[] bucketStarts = new int[buckets + 1];
+            for (int b = 0; b < buckets; ++b) bucketStarts[b + 1] = bucketStarts[b] + bucketSizes[b];
+            final int[] bucketEntries = new int[size];
+            final int[] fill = Arrays.copyOf(bucketStarts, buckets);
+            for (int i = 0; i < size; ++i) bucketEntries[fill[bucket(hashes[i], buckets)]++] = i;
+
+            final Integer[] order = new Integer[buckets];
+            for (int b = 0; b < buckets; ++b) order[b] = b;
+            Arrays.sort(order, (a, b) -> Integer.compare(bucketSizes[b], bucketSizes[a]));
+
+            final int[] slotEntries = new int[size];
+            Arrays.fill(slotEntries, -1);
+            final int[] slots = new int[size == 0 ? 0 : bucketSizes[order[0]]];
+            int freeSlot = 0;
+
+            for (int bucket : order) {
+                final int bucketSize = bucketSizes[bucket];
+                if (bucketSize == 0) break;
+                final int start = bucketStarts[bucket];
+
+                if (bucketSize == 1) {
+                    while (slotEntries[freeSlot] >= 0) ++freeSlot;
+                    slotEntries[freeSlot] = bucketEntries[start];
+                    seeds[bucket] = -freeSlot - 1;
+                    continue;
+                }
+
+                search:
+                for (int seed = 0; ; ++seed) {
+                    if (seed == MAX_SEED) throw new IllegalArgumentException("Cannot build perfect hash, duplicate encoded keys?");
+                    for (int k = 0; k < bucketSize; ++k) {
+                        final int slot = slot(hashes[bucketEntries[start + k]], seed, size);
+                        if (slotEntries[slot] >= 0) continue search;
+                        for (int j = 0; j < k; ++j) {
+                            if (slots[j] == slot) continue search;
+                        }
+                        slots[k] = slot;
+                    }
+                    for (int k = 0; k < bucketSize; ++k) slotEntries[slots[k]] = bucketEntries[start + k];
+                    seeds[bucket] = seed;
+                    break;
+                }
+            }
+            return slotEntries;
+        }
+
+        /** 64 bit FNV-1a, finalized with the murmur3 mix */
+        private static long hash(byte[] bytes) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : bytes) h = (h ^ (b & 0xff)) * 0x100000001b3L;
+            return mix64(h);
+        }
+
+        private static long mix64(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            return h ^ (h >>> 33);
+        }
+
+        private static int bucket(long hash, int buckets) {
+            return (int) ((hash >>> 1) % buckets);
+        }
+
+        private static int slot(long hash, int seed, int size) {
+            return (int) ((mix64(hash + seed * 0x9e3779b97f4a7c15L) >>> 1) % size);
+        }
+
+        private ByteBuffer buffer() {
+            final ByteBuffer buffer = this.buffer;
+            if (buffer == null) throw new IllegalStateException("MappedMap is closed");
+            return buffer;
+        }
+
+        /** @return file offset of the key's record, or -1 if absent */
+        @SuppressWarnings("unchecked")
+        private int recordOffset(Object key) {
+            if (key == null || size == 0) return -1;
+            final byte[] bytes;
+            try {
+                bytes = keyCodec.encode((K) key);
+            }
+            catch (ClassCastException e) {
+                return -1;
+            }
+            final ByteBuffer buffer = buffer();
+            final long hash = hash(bytes);
+            final int seed = buffer.getInt(HEADER_BYTES + bucket(hash, buckets) * 4);
+            final int slot = seed < 0 ? -seed - 1 : slot(hash, seed, size);
+            final int offset = buffer.getInt(slotsStart + slot * 4);
+
+            if (buffer.getInt(offset) != bytes.length) return -1;
+            final int keyStart = offset + RECORD_HEADER_BYTES;
+            for (int i = 0; i < bytes.length; ++i) {
+                if (buffer.get(keyStart + i) != bytes[i]) return -1;
+            }
+            return offset;
+        }
+
+        private ByteBuffer keyBytes(int offset) {
+            final ByteBuffer buffer = buffer();
+            final int keyStart = offset + RECORD_HEADER_BYTES;
+            return OffHeapMap.slice(buffer, keyStart, keyStart + buffer.getInt(offset)).asReadOnlyBuffer();
+        }
+
+        private ByteBuffer valueBytes(int offset) {
+            final ByteBuffer buffer = buffer();
+            final int valueStart = offset + RECORD_HEADER_BYTES + buffer.getInt(offset);
+            return OffHeapMap.slice(buffer, valueStart, valueStart + buffer.getInt(offset + 4)).asReadOnlyBuffer();
+        }
+
+        /**
+         * Returns the encoded value mapped to the key as a read-only view of the mapped file, without copying
+         * or decoding. The view must not be accessed after this map is closed.
+         * @param key map key
+         * @return encoded value, or null if absent
+         */
+        public ByteBuffer getBytes(Object key) {
+            final int offset = recordOffset(key);
+            return offset < 0 ? null : valueBytes(offset);
+        }
+
+        @Override
+        public V get(Object key) {
+            final int offset = recordOffset(key);
+            return offset < 0 ? null : valueCodec.decode(valueBytes(offset));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return recordOffset(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            buffer();
+            return size;
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            buffer();
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return new Iterator<java.util.Map.Entry<K, V>>() {
+                        private int slot;
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < size;
+                        }
+
+                        @Override
+                        public java.util.Map.Entry<K, V> next() {
+                            if (slot >= size) throw new NoSuchElementException();
+                            final int offset = buffer().getInt(slotsStart + slot++ * 4);
+                            return new AbstractMap.SimpleImmutableEntry<>(
+                                keyCodec.decode(keyBytes(offset)),
+                                valueCodec.decode(valueBytes(offset)));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        /**
+         * Unmaps the file, further use of the map, or of buffers returned by {@link #getBytes(Object)},
+         * is not allowed. Repeated calls have no effect. Must not run concurrently with reads, see the class
+         * documentation.
+         */
+        @Override
+        public void close() {
+            final ByteBuffer buffer = this.buffer;
+            this.buffer = null;
+            DirectBuffers.release(buffer);
+        }
+    }
+
+    /**
+     * Immutable persistent fluent map, a hash array mapped trie where appending returns a new version of the map
+     * sharing structure with the previous version, rather than modifying it. Updates copy O(log32 n) nodes & every
+     * version remains valid, allowing cheap derived maps & safe sharing with concurrent readers.
+     * <pre>{@code
+     *  Fluent.PersistentMap<String, String> base = new Fluent.PersistentMap<String, String>()
+     *      .append("user", "David")
+     *      .append("locale", "en");
+     *  Fluent.PersistentMap<String, String> derived = base.append("locale", "fr"); // base is unchanged
+     * }</pre>
+     * The java.util.Map mutators throw UnsupportedOperationException.
+     */
+    public static class PersistentMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V> {
+
+        private final TrieNode root;
+        private final int size;
+        private int hashCode;
+
+        private PersistentMap(TrieNode root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        public PersistentMap() {
+            this(TrieNode.EMPTY, 0);
+        }
+
+        public PersistentMap(java.util.Map<? extends K, ? extends V> m) {
+            this(new PersistentMap<K, V>().appendAll(m));
+        }
+
+        private PersistentMap(PersistentMap<K, V> version) {
+            this(version.root, version.size);
+        }
+
+        /**
+         * @return new version of this map also mapping key to val, or this map if already mapped
+         */
+        @Override
+        public PersistentMap<K, V> append(K key, V val) {
+            final TrieNode.Change change = new TrieNode.Change();
+            final TrieNode newRoot = root.put(key, val, ImmutableMaps.spread(key), 0, change);
+            if (newRoot == root) return this;
+            return new PersistentMap<>(newRoot, change.added ? size + 1 : size);
+        }
+
+        /**
+         * @return new version of this map also containing all the input map's entries
+         */
+        @Override
+        public PersistentMap<K, V> appendAll(java.util.Map<? extends K, ? extends V> map) {
+            PersistentMap<K, V> result = this;
+            for (java.util.Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                result = result.append(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+
+        /**
+         * @return new version of this map also containing the entry
+         */
+        @Override
+        public PersistentMap<K, V> append(java.util.Map.Entry<? extends K, ? extends V> entry) {
+            return append(entry.getKey(), entry.getValue());
+        }
+
+        /**
+         * @return new version of this map without a mapping for key, or this map if key is absent
+         */
+        public PersistentMap<K, V> without(Object key) {
+            final TrieNode newRoot = root.remove(key, ImmutableMaps.spread(key), 0);
+            return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            final Object value = root.find(key, ImmutableMaps.spread(key), 0);
+            return value == TrieNode.ABSENT ? null : (V) value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getOrDefault(Object key, V defaultValue) {
+            final Object value = root.find(key, ImmutableMaps.spread(key), 0);
+            return value == TrieNode.ABSENT ? defaultValue : (V) value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return root.find(key, ImmutableMaps.spread(key), 0) != TrieNode.ABSENT;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hashCode;
+            if (h == 0 && size != 0) hashCode = h = super.hashCode();
+            return h;
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return new TrieNode.EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public V put(K key, V value) {
+            throw new UnsupportedOperationException("PersistentMap is immutable, use append");
+        }
+
+        @Override
+        public V remove(Object key) {
+            throw new UnsupportedOperationException("PersistentMap is immutable, use without");
+        }
+
+        @Override
+        public void putAll(java.util.Map<? extends K, ? extends V> m) {
+            throw new UnsupportedOperationException("PersistentMap is immutable, use appendAll");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("PersistentMap is immutable");
+        }
+    }
+
+    /**
+     * Bounded fluent cache map, evicting entries once a maximum size, or total weight, is exceeded. Entries are
+     * held in access ordered java.util.LinkedHashMaps, victims are chosen by the {@link Policy}:
+     * <ul>
+     *     <li>{@link Policy#LRU} evicts the least recently used entry</li>
+     *     <li>{@link Policy#LFU} evicts the least frequently used of the 5 least recently used entries & the
+     *     newly added entry, so rarely used new entries do not displace frequently used ones</li>
+     *     <li>{@link Policy#W_TINY_LFU} admits new entries through a small LRU window, after which an entry
+     *     only displaces the least recently used entry of the main space if it is used more frequently</li>
+     * </ul>
+     * Frequencies are estimated by a compact, periodically aged, count-min sketch. Hits, misses & evictions
+     * are counted. Not thread-safe.
+     * <pre>{@code
+     *  Fluent.CacheMap<String, User> users = new Fluent.CacheMap<>(10_000, Fluent.CacheMap.Policy.W_TINY_LFU);
+     * }</pre>
+     */
+    public static class CacheMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V> {
+
+        /** Eviction policy */
+        public enum Policy { LRU, LFU, W_TINY_LFU }
+
+        private static final int LFU_SAMPLE = 5;
+        private static final int WINDOW_PERCENT = 1;
+
+        private final long maximumWeight;
+        private final long maximumWindowWeight;
+        private final ToIntBiFunction<? super K, ? super V> weigher;
+        private final Policy policy;
+        private final FrequencySketch sketch;
+        /** new entries of W_TINY_LFU, otherwise empty */
+        private final java.util.LinkedHashMap<K, V> window = new java.util.LinkedHashMap<>(16, 0.75f, true);
+        private final java.util.LinkedHashMap<K, V> main = new java.util.LinkedHashMap<>(16, 0.75f, true);
+        private long windowWeight;
+        private long mainWeight;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        /**
+         * @param maximumWeight maximum total weight of entries
+         * @param weigher non-negative weight of an entry, must return the same weight whenever called for an entry
+         * @param policy eviction policy
+         */
+        public CacheMap(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, Policy policy) {
+            if (maximumWeight < 0) throw new IllegalArgumentException("negative maximumWeight " + maximumWeight);
+            this.maximumWeight = maximumWeight;
+            this.maximumWindowWeight = policy == Policy.W_TINY_LFU
+                ? Math.min(maximumWeight, Math.max(1, maximumWeight * WINDOW_PERCENT / 100))
+                : 0;
+            this.weigher = Objects.requireNonNull(weigher);
+            this.policy = Objects.requireNonNull(policy);
+            this.sketch = policy == Policy.LRU ? null : new FrequencySketch(maximumWeight);
+        }
+
+        /**
+         * @param maximumSize maximum number of entries
+         * @param policy eviction policy
+         */
+        public CacheMap(long maximumSize, Policy policy) {
+            this(maximumSize, (k, v) -> 1, policy);
+        }
+
+        /**
+         * Least recently used cache
+         * @param maximumSize maximum number of entries
+         */
+        public CacheMap(long maximumSize) {
+            this(maximumSize, Policy.LRU);
+        }
+
+        private long weigh(K key, V value) {
+            final int weight = weigher.applyAsInt(key, value);
+            if (weight < 0) throw new IllegalStateException("negative weight " + weight + " of key " + key);
+            return weight;
+        }
+
+        private void recordAccess(Object key) {
+            if (sketch != null) sketch.increment(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            recordAccess(key);
+            V value = main.get(key);
+            if (value != null || main.containsKey(key)) {
+                ++hits;
+                return value;
+            }
+            value = window.get(key);
+            if (value != null || window.containsKey(key)) {
+                ++hits;
+                return value;
+            }
+            ++misses;
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return main.containsKey(key) || window.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return main.containsValue(value) || window.containsValue(value);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            recordAccess(key);
+            final long weight = weigh(key, value);
+            final V previous;
+            boolean added = false;
+            if (main.containsKey(key)) {
+                previous = main.put(key, value);
+                mainWeight += weight - weigh(key, previous);
+            }
+            else if (window.containsKey(key)) {
+                previous = window.put(key, value);
+                windowWeight += weight - weigh(key, previous);
+            }
+            else {
+                previous = null;
+                added = true;
+                if (sketch != null) sketch.ensureCapacity(main.size() + window.size() + 1L);
+                if (policy == Policy.W_TINY_LFU) {
+                    window.put(key, value);
+                    windowWeight += weight;
+                }
+                else {
+                    main.put(key, value);
+                    mainWeight += weight;
+                }
+            }
+            evict(added ? key : null, added);
+            return previous;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            if (main.containsKey(key)) {
+                final V removed = main.remove(key);
+                mainWeight -= weigh((K) key, removed);
+                return removed;
+            }
+            if (window.containsKey(key)) {
+                final V removed = window.remove(key);
+                windowWeight -= weigh((K) key, removed);
+                return removed;
+            }
+            return null;
+        }
+
+        @Override
+        public void clear() {
+            main.clear();
+            window.clear();
+            mainWeight = 0;
+            windowWeight = 0;
+        }
+
+        @Override
+        public int size() {
+            return main.size() + window.size();
+        }
+
+        /**
+         * @param added newly added key, if any
+         * @param hasAdded whether an entry was newly added
+         */
+        private void evict(K added, boolean hasAdded) {
+            while (windowWeight > maximumWindowWeight) {
+                final Iterator<java.util.Map.Entry<K, V>> eldest = window.entrySet().iterator();
+                final java.util.Map.Entry<K, V> candidate = eldest.next();
+                eldest.remove();
+                final long weight = weigh(candidate.getKey(), candidate.getValue());
+                windowWeight -= weight;
+                if (admit(candidate.getKey(), weight)) {
+                    main.put(candidate.getKey(), candidate.getValue());
+                    mainWeight += weight;
+                }
+                else ++evictions;
+            }
+            while (mainWeight + windowWeight > maximumWeight && !main.isEmpty()) {
+                evictFromMain(victim(added, hasAdded));
+            }
+        }
+
+        /** @return whether the window candidate should displace main entries, evicting them if so */
+        private boolean admit(K candidate, long weight) {
+            final long maximumMainWeight = maximumWeight - maximumWindowWeight;
+            if (weight > maximumMainWeight) return false;
+            final int frequency = sketch.frequency(candidate);
+            while (mainWeight + weight > maximumMainWeight) {
+                final java.util.Map.Entry<K, V> victim = main.entrySet().iterator().next();
+                if (sketch.frequency(victim.getKey()) >= frequency) return false;
+                evictFromMain(victim);
+            }
+            return true;
+        }
+
+        private java.util.Map.Entry<K, V> victim(K added, boolean hasAdded) {
+            final Iterator<java.util.Map.Entry<K, V>> lru = main.entrySet().iterator();
+            java.util.Map.Entry<K, V> victim = lru.next();
+            if (policy == Policy.LFU) {
+                int victimFrequency = sketch.frequency(victim.getKey());
+                for (int i = 1; i < LFU_SAMPLE && lru.hasNext(); ++i) {
+                    final java.util.Map.Entry<K, V> sample = lru.next();
+                    final int frequency = sketch.frequency(sample.getKey());
+                    if (frequency < victimFrequency) {
+                        victim = sample;
+                        victimFrequency = frequency;
+                    }
+                }
+                if (hasAdded && main.containsKey(added) && sketch.frequency(added) <= victimFrequency) {
+                    victim = new AbstractMap.SimpleImmutableEntry<>(added, main.get(added));
+                }
+            }
+            return victim;
+        }
+
+        private void evictFromMain(java.util.Map.Entry<K, V> victim) {
+            final K key = victim.getKey();
+            mainWeight -= weigh(key, victim.getValue());
+            main.remove(key);
+            ++evictions;
+        }
+
+        /** @return number of get calls that found a mapping */
+        public long hitCount() {
+            return hits;
+        }
+
+        /** @return number of get calls that found no mapping */
+        public long missCount() {
+            return misses;
+        }
+
+        /** @return number of entries evicted to bound the cache */
+        public long evictionCount() {
+            return evictions;
+        }
+
+        /** @return current total weight of entries, equal to the size unless constructed with a weigher */
+        public long weight() {
+            return mainWeight + windowWeight;
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return new Iterator<java.util.Map.Entry<K, V>>() {
+                        private final Iterator<java.util.Map.Entry<K, V>> windowEntries = window.entrySet().iterator();
+                        private Iterator<java.util.Map.Entry<K, V>> current = windowEntries;
+                        private Iterator<java.util.Map.Entry<K, V>> lastIterator;
+                        private java.util.Map.Entry<K, V> last;
+
+                        @Override
+                        public boolean hasNext() {
+                            if (current == windowEntries && !current.hasNext()) current = main.entrySet().iterator();
+                            return current.hasNext();
+                        }
+
+                        @Override
+                        public java.util.Map.Entry<K, V> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            last = current.next();
+                            lastIterator = current;
+                            return new AbstractMap.SimpleImmutableEntry<>(last);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) throw new IllegalStateException();
+                            final long weight = weigh(last.getKey(), last.getValue());
+                            lastIterator.remove();
+                            if (lastIterator == windowEntries) windowWeight -= weight;
+                            else mainWeight -= weight;
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return CacheMap.this.size();
+                }
+            };
+        }
+
+        /** Replaces through {@link #put(Object, Object)}, so weights & the eviction policy stay consistent */
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            Objects.requireNonNull(function);
+            for (java.util.Map.Entry<K, V> entry : new ArrayList<>(entrySet())) {
+                // a heavier replacement may have evicted entries not yet replaced
+                if (containsKey(entry.getKey())) put(entry.getKey(), function.apply(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Bounded, thread-safe, fluent cache map evicting by W-TinyLFU once a maximum size, or total weight, is
+     * exceeded. Entries are held in a {@link Fluent.ConcurrentHashMap}, so reads & writes of different keys do not
+     * block each other. Reads are recorded in striped, lossy, ring buffers & writes in a queue, which are replayed
+     * against the eviction policy in batches by whichever thread wins a tryLock, run on the caller or a given
+     * executor. So the cache may briefly exceed its maximum while maintenance is pending, see {@link #cleanUp()}.
+     * <p>
+     * As {@link CacheMap.Policy#W_TINY_LFU}, new entries are admitted through a small LRU window, after which an
+     * entry only displaces the least recently used entry of the main space if a frequency sketch estimates it to be
+     * used more often. Null keys & values are not permitted.
+     * <pre>{@code
+     *  Fluent.ConcurrentCache<String, User> users = new Fluent.ConcurrentCache<>(10_000);
+     * }</pre>
+     */
+    public static class ConcurrentCache<K, V> extends AbstractMap<K, V>
+        implements Fluent.Map<K, V>, ConcurrentMap<K, V> {
+
+        private static final int WINDOW_PERCENT = 1;
+        private static final int READ_BUFFER_SIZE = 16;
+        private static final int READ_BUFFER_STRIPES =
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+        private final Fluent.ConcurrentHashMap<K, Node<K, V>> data = new Fluent.ConcurrentHashMap<>();
+        private final long maximumWeight;
+        private final long maximumWindowWeight;
+        private final ToIntBiFunction<? super K, ? super V> weigher;
+        private final Executor executor;
+        private final ReadBuffer<K, V>[] readBuffers;
+        private final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock evictionLock = new ReentrantLock();
+        private final AtomicBoolean drainRequired = new AtomicBoolean();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final Runnable drainTask = this::drainBuffers;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        // guarded by evictionLock
+        private final FrequencySketch sketch;
+        private final AccessDeque<K, V> window = new AccessDeque<>();
+        private final AccessDeque<K, V> main = new AccessDeque<>();
+        private long windowWeight;
+        private long mainWeight;
+
+        /**
+         * @param maximumWeight maximum total weight of entries
+         * @param weigher non-negative weight of an entry, must return the same weight whenever called for an entry
+         * @param executor runs cache maintenance, eg Runnable::run to run on the calling thread
+         */
+        public ConcurrentCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, Executor executor) {
+            if (maximumWeight < 0) throw new IllegalArgumentException("negative maximumWeight " + maximumWeight);
+            this.maximumWeight = maximumWeight;
+            this.maximumWindowWeight = Math.min(maximumWeight, Math.max(1, maximumWeight * WINDOW_PERCENT / 100));
+            this.weigher = Objects.requireNonNull(weigher);
+            this.executor = Objects.requireNonNull(executor);
+            this.sketch = new FrequencySketch(maximumWeight);
+            this.readBuffers = newReadBuffers(READ_BUFFER_STRIPES);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> ReadBuffer<K, V>[] newReadBuffers(int stripes) {
+            final ReadBuffer<K, V>[] buffers = (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[stripes];
+            for (int i = 0; i < buffers.length; ++i) buffers[i] = new ReadBuffer<>();
+            return buffers;
+        }
+
+        /**
+         * @param maximumSize maximum number of entries
+         * @param executor runs cache maintenance, eg Runnable::run to run on the calling thread
+         */
+        public ConcurrentCache(long maximumSize, Executor executor) {
+            this(maximumSize, (k, v) -> 1, executor);
+        }
+
+        /**
+         * Cache maintaining itself on the calling threads
+         * @param maximumSize maximum number of entries
+         */
+        public ConcurrentCache(long maximumSize) {
+            this(maximumSize, Runnable::run);
+        }
+
+        private int weigh(K key, V value) {
+            final int weight = weigher.applyAsInt(key, value);
+            if (weight < 0) throw new IllegalStateException("negative weight " + weight + " of key " + key);
+            return weight;
+        }
+
+        @Override
+        public V get(Object key) {
+            final Node<K, V> node = data.get(key);
+            if (node == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            afterRead(node);
+            return node.value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return data.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            Objects.requireNonNull(value);
+            for (Node<K, V> node : data.values()) {
+                if (value.equals(node.value)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return put(key, value, false);
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            return put(key, value, true);
+        }
+
+        private V put(K key, V value, boolean onlyIfAbsent) {
+            Objects.requireNonNull(value);
+            final int weight = weigh(key, value);
+            Node<K, V> node = null;
+            for (;;) {
+                final Node<K, V> prior = data.get(key);
+                if (prior == null) {
+                    if (node == null) node = new Node<>(key, value, weight);
+                    if (data.putIfAbsent(key, node) == null) {
+                        final Node<K, V> added = node;
+                        afterWrite(() -> onAdd(added));
+                        return null;
+                    }
+                    continue;
+                }
+                if (onlyIfAbsent) {
+                    afterRead(prior);
+                    return prior.value;
+                }
+                final V previous;
+                synchronized (prior) {
+                    if (!prior.alive) {
+                        // help the concurrent removal complete, then retry
+                        data.remove(key, prior);
+                        continue;
+                    }
+                    previous = prior.value;
+                    prior.value = value;
+                    prior.weight = weight;
+                }
+                afterWrite(() -> onUpdate(prior));
+                return previous;
+            }
+        }
+
+        @Override
+        public V replace(K key, V value) {
+            Objects.requireNonNull(value);
+            final int weight = weigh(key, value);
+            final Node<K, V> node = data.get(key);
+            if (node == null) return null;
+            final V previous;
+            synchronized (node) {
+                if (!node.alive) return null;
+                previous = node.value;
+                node.value = value;
+                node.weight = weight;
+            }
+            afterWrite(() -> onUpdate(node));
+            return previous;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            Objects.requireNonNull(oldValue);
+            Objects.requireNonNull(newValue);
+            final int weight = weigh(key, newValue);
+            final Node<K, V> node = data.get(key);
+            if (node == null) return false;
+            synchronized (node) {
+                if (!node.alive || !oldValue.equals(node.value)) return false;
+                node.value = newValue;
+                node.weight = weight;
+            }
+            afterWrite(() -> onUpdate(node));
+            return true;
+        }
+
+        @Override
+        public V remove(Object key) {
+            final Node<K, V> node = data.get(key);
+            return node == null ? null : removeNode(node, null);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            if (value == null) return false;
+            final Node<K, V> node = data.get(key);
+            return node != null && removeNode(node, value) != null;
+        }
+
+        /**
+         * @param expected value the node must hold to be removed, or null to remove regardless
+         * @return removed value, or null if not removed
+         */
+        private V removeNode(Node<K, V> node, Object expected) {
+            final V removed;
+            synchronized (node) {
+                if (!node.alive || expected != null && !expected.equals(node.value)) return null;
+                node.alive = false;
+                removed = node.value;
+            }
+            data.remove(node.key, node);
+            afterWrite(() -> onRemove(node));
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            for (Node<K, V> node : data.values()) removeNode(node, null);
+        }
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return data.isEmpty();
+        }
+
+        private void afterRead(Node<K, V> node) {
+            final ReadBuffer<K, V> buffer = readBuffers[mix(Thread.currentThread().getId()) & (readBuffers.length - 1)];
+            if (buffer.offer(node)) {
+                drainRequired.set(true);
+                scheduleDrain();
+            }
+        }
+
+        private void afterWrite(Runnable task) {
+            writeBuffer.add(task);
+            drainRequired.set(true);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(drainTask);
+                }
+                catch (RejectedExecutionException e) {
+                    drainTask.run();
+                }
+            }
+        }
+
+        /**
+         * Runs maintenance unless another thread is already doing so. A thread that fails the tryLock leaves
+         * drainRequired set, which the lock holder re-checks after unlocking, so no buffered work is stranded.
+         */
+        private void drainBuffers() {
+            drainScheduled.set(false);
+            drainWhileRequired();
+        }
+
+        /** Re-checks drainRequired after releasing evictionLock, as any lock holder must, see drainBuffers */
+        private void drainWhileRequired() {
+            while (drainRequired.get() && evictionLock.tryLock()) {
+                try {
+                    drainRequired.set(false);
+                    maintenance();
+                }
+                finally {
+                    evictionLock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Performs any pending maintenance, applying buffered reads & writes to the eviction policy and evicting
+         * entries until the cache is within its maximum. Blocks while another thread is doing so.
+         */
+        public void cleanUp() {
+            evictionLock.lock();
+            try {
+                drainRequired.set(false);
+                maintenance();
+            }
+            finally {
+                evictionLock.unlock();
+            }
+            drainWhileRequired();
+        }
+
+        private void maintenance() {
+            for (ReadBuffer<K, V> buffer : readBuffers) buffer.drainTo(this);
+            for (Runnable task; (task = writeBuffer.poll()) != null; ) task.run();
+            evict();
+        }
+
+        private void onAccess(Node<K, V> node) {
+            if (node.deque == null) return;
+            sketch.increment(node.key);
+            node.deque.moveToBack(node);
+        }
+
+        private void onAdd(Node<K, V> node) {
+            sketch.ensureCapacity(data.mappingCount());
+            sketch.increment(node.key);
+            // a removal task may have overtaken this one in the write buffer
+            if (!node.alive || node.deque != null) return;
+            node.policyWeight = node.weight;
+            window.addLast(node);
+            windowWeight += node.policyWeight;
+        }
+
+        private void onUpdate(Node<K, V> node) {
+            if (node.deque == null) return;
+            final int weight = node.weight;
+            if (node.deque == window) windowWeight += weight - node.policyWeight;
+            else mainWeight += weight - node.policyWeight;
+            node.policyWeight = weight;
+            onAccess(node);
+        }
+
+        private void onRemove(Node<K, V> node) {
+            if (node.deque == null) return;
+            if (node.deque == window) windowWeight -= node.policyWeight;
+            else mainWeight -= node.policyWeight;
+            node.deque.remove(node);
+        }
+
+        private void evict() {
+            while (windowWeight > maximumWindowWeight) {
+                final Node<K, V> candidate = window.first;
+                window.remove(candidate);
+                windowWeight -= candidate.policyWeight;
+                if (admit(candidate)) {
+                    main.addLast(candidate);
+                    mainWeight += candidate.policyWeight;
+                }
+                else evictNode(candidate);
+            }
+            while (mainWeight + windowWeight > maximumWeight && main.first != null) {
+                evictFromMain(main.first);
+            }
+        }
+
+        /** @return whether the window candidate should displace main entries, evicting them if so */
+        private boolean admit(Node<K, V> candidate) {
+            final long maximumMainWeight = maximumWeight - maximumWindowWeight;
+            if (candidate.policyWeight > maximumMainWeight) return false;
+            final int frequency = sketch.frequency(candidate.key);
+            while (mainWeight + candidate.policyWeight > maximumMainWeight) {
+                final Node<K, V> victim = main.first;
+                if (sketch.frequency(victim.key) >= frequency) return false;
+                evictFromMain(victim);
+            }
+            return true;
+        }
+
+        private void evictFromMain(Node<K, V> victim) {
+            main.remove(victim);
+            mainWeight -= victim.policyWeight;
+            evictNode(victim);
+        }
+
+        /** Removes an entry no longer linked into the policy from the map, unless already removed */
+        private void evictNode(Node<K, V> node) {
+            synchronized (node) {
+                if (!node.alive) return;
+                node.alive = false;
+            }
+            data.remove(node.key, node);
+            evictions.increment();
+        }
+
+        /** @return number of get calls that found a mapping */
+        public long hitCount() {
+            return hits.sum();
+        }
+
+        /** @return number of get calls that found no mapping */
+        public long missCount() {
+            return misses.sum();
+        }
+
+        /** @return number of entries evicted to bound the cache */
+        public long evictionCount() {
+            return evictions.sum();
+        }
+
+        /** @return total weight of entries after performing pending maintenance, see {@link #cleanUp()} */
+        public long weight() {
+            final long weight;
+            evictionLock.lock();
+            try {
+                drainRequired.set(false);
+                maintenance();
+                weight = mainWeight + windowWeight;
+            }
+            finally {
+                evictionLock.unlock();
+            }
+            drainWhileRequired();
+            return weight;
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return new Iterator<java.util.Map.Entry<K, V>>() {
+                        private final Iterator<Node<K, V>> nodes = data.values().iterator();
+                        private Node<K, V> last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return nodes.hasNext();
+                        }
+
+                        @Override
+                        public java.util.Map.Entry<K, V> next() {
+                            last = nodes.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(last.key, last.value);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) throw new IllegalStateException();
+                            removeNode(last, null);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ConcurrentCache.this.size();
+                }
+            };
+        }
+
+        private static final class Node<K, V> {
+            final K key;
+            volatile V value;
+            volatile int weight;
+            /** false once removed, or being removed, from the map, written while synchronized on the node */
+            volatile boolean alive = true;
+
+            // guarded by evictionLock
+            int policyWeight;
+            /** window or main when linked into the policy, otherwise null */
+            AccessDeque<K, V> deque;
+            Node<K, V> prev;
+            Node<K, V> next;
+
+            Node(K key, V value, int weight) {
+                this.key = Objects.requireNonNull(key);
+                this.value = value;
+                this.weight = weight;
+            }
+        }
+
+        /** Intrusive doubly linked list of nodes, least recently used first */
+        private static final class AccessDeque<K, V> {
+            Node<K, V> first;
+            Node<K, V> last;
+
+            void addLast(Node<K, V> node) {
+                node.deque = this;
+                node.prev = last;
+                node.next = null;
+                if (last == null) first = node;
+                else last.next = node;
+                last = node;
+            }
+
+            void remove(Node<K, V> node) {
+                if (node.prev == null) first = node.next;
+                else node.prev.next = node.next;
+                if (node.next == null) last = node.prev;
+                else node.next.prev = node.prev;
+                node.prev = null;
+                node.next = null;
+                node.deque = null;
+            }
+
+            void moveToBack(Node<K, V> node) {
+                if (node == last) return;
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        /**
+         * Lossy ring buffer of read nodes. Many threads offer, a read is dropped rather than retried if the buffer
+         * is full or another thread wins the slot, as the policy only needs a sample. Drained under evictionLock.
+         */
+        private static final class ReadBuffer<K, V> {
+            private static final int MASK = READ_BUFFER_SIZE - 1;
+
+            private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+            private final AtomicLong writes = new AtomicLong();
+            /** written only while holding evictionLock */
+            private volatile long reads;
+
+            /** @return whether the buffer is full, so should be drained */
+            boolean offer(Node<K, V> node) {
+                final long head = reads;
+                final long tail = writes.get();
+                if (tail - head >= READ_BUFFER_SIZE) return true;
+                if (writes.compareAndSet(tail, tail + 1)) slots.lazySet((int) tail & MASK, node);
+                return false;
+            }
+
+            void drainTo(ConcurrentCache<K, V> cache) {
+                long head = reads;
+                final long tail = writes.get();
+                for (; head < tail; ++head) {
+                    final int index = (int) head & MASK;
+                    final Node<K, V> node = slots.get(index);
+                    // the writer that claimed this slot has not yet published to it
+                    if (node == null) break;
+                    slots.lazySet(index, null);
+                    cache.onAccess(node);
+                }
+                reads = head;
+            }
+        }
+    }
+
+    /**
+     * Thread-safe fluent map whose entries expire a time-to-live after they were written, or last read. The ttl
+     * may be overridden per entry with {@link #append(Object, Object, Duration)}. Expired entries are never
+     * returned & are reaped by a hierarchical timer wheel as time passes, in O(1) amortized time per entry rather
+     * than by scanning the map. Reads are lock-free, writes & reaping hold a lock. Null keys & values are not
+     * permitted.
+     * <pre>{@code
+     *  Fluent.ExpiringMap<String, Session> sessions = new Fluent.ExpiringMap<>(Duration.ofMinutes(30), Expiry.AFTER_ACCESS)
+     *      .append(id, session)
+     *      .append(adminId, adminSession, Duration.ofMinutes(5));
+     * }</pre>
+     * Reaping is up to about a second late, so {@link #size()} may count entries that have only just expired.
+     */
+    public static class ExpiringMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V> {
+
+        /** What an entry's time-to-live counts from */
+        public enum Expiry { AFTER_WRITE, AFTER_ACCESS }
+
+        /** ~146 years, so expiry times never overflow */
+        private static final long MAXIMUM_TTL_NANOS = Long.MAX_VALUE >> 1;
+
+        private final Fluent.ConcurrentHashMap<K, Node<K, V>> data = new Fluent.ConcurrentHashMap<>();
+        private final long ttlNanos;
+        private final Expiry expiry;
+        private final LongSupplier ticker;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Consumer<TimerWheel.Node> reaper = this::reap;
+        // guarded by lock
+        private final TimerWheel wheel;
+        /** time of the wheel's next tick, before which there is nothing to reap */
+        private volatile long nextReap;
+
+        /**
+         * @param ttl default time-to-live of entries
+         * @param expiry what the time-to-live counts from
+         * @param ticker current time in nanoseconds, eg System::nanoTime
+         */
+        public ExpiringMap(Duration ttl, Expiry expiry, LongSupplier ticker) {
+            this.ttlNanos = toNanos(ttl);
+            this.expiry = Objects.requireNonNull(expiry);
+            this.ticker = Objects.requireNonNull(ticker);
+            this.wheel = new TimerWheel(ticker.getAsLong());
+            this.nextReap = wheel.nextTick();
+        }
+
+        /**
+         * @param ttl default time-to-live of entries
+         * @param expiry what the time-to-live counts from
+         */
+        public ExpiringMap(Duration ttl, Expiry expiry) {
+            this(ttl, expiry, System::nanoTime);
+        }
+
+        /**
+         * Map with entries expiring after write
+         * @param ttl default time-to-live of entries
+         */
+        public ExpiringMap(Duration ttl) {
+            this(ttl, Expiry.AFTER_WRITE);
+        }
+
+        private static long toNanos(Duration ttl) {
+            if (ttl.isNegative()) throw new IllegalArgumentException("negative ttl " + ttl);
+            try {
+                return Math.min(ttl.toNanos(), MAXIMUM_TTL_NANOS);
+            }
+            catch (ArithmeticException e) {
+                return MAXIMUM_TTL_NANOS;
+            }
+        }
+
+        @Override
+        public ExpiringMap<K, V> append(K key, V val) {
+            put(key, val);
+            return this;
+        }
+
+        @Override
+        public ExpiringMap<K, V> appendAll(java.util.Map<? extends K, ? extends V> map) {
+            putAll(map);
+            return this;
+        }
+
+        /**
+         * Equivalent to append(key, val) with a time-to-live overriding the map's default for this entry
+         * @param ttl time-to-live of the entry
+         * @return self-reference
+         */
+        public ExpiringMap<K, V> append(K key, V val, Duration ttl) {
+            put(key, val, ttl);
+            return this;
+        }
+
+        @Override
+        public V get(Object key) {
+            final Node<K, V> node = data.get(key);
+            if (node == null) return null;
+            final long now = ticker.getAsLong();
+            maybeReap(now);
+            if (node.isExpired(now)) return null;
+            if (expiry == Expiry.AFTER_ACCESS) node.timestamp = now;
+            return node.value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            final Node<K, V> node = data.get(key);
+            return node != null && !node.isExpired(ticker.getAsLong());
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return put(key, value, ttlNanos);
+        }
+
+        /**
+         * Equivalent to put(key, value) with a time-to-live overriding the map's default for this entry
+         * @param ttl time-to-live of the entry
+         * @return previous unexpired value of the key, or null
+         */
+        public V put(K key, V value, Duration ttl) {
+            return put(key, value, toNanos(ttl));
+        }
+
+        private V put(K key, V value, long ttlNanos) {
+            Objects.requireNonNull(value);
+            lock.lock();
+            try {
+                final long now = advance();
+                final Node<K, V> node = new Node<>(key, value, ttlNanos, now);
+                final Node<K, V> previous = data.put(key, node);
+                wheel.schedule(node);
+                if (previous == null) return null;
+                wheel.deschedule(previous);
+                return previous.isExpired(now) ? null : previous.value;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public V remove(Object key) {
+            lock.lock();
+            try {
+                final long now = advance();
+                final Node<K, V> node = data.remove(key);
+                if (node == null) return null;
+                wheel.deschedule(node);
+                return node.isExpired(now) ? null : node.value;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        private void removeNode(Node<K, V> node) {
+            lock.lock();
+            try {
+                if (data.remove(node.key, node)) wheel.deschedule(node);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Replaces each unexpired value with the result of the function. Unlike a put, a replaced entry keeps its
+         * time-to-live & expiry time, as the entry is transformed rather than written anew.
+         */
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            Objects.requireNonNull(function);
+            lock.lock();
+            try {
+                final long now = advance();
+                for (Node<K, V> node : data.values()) {
+                    if (node.isExpired(now)) continue;
+                    final V value = Objects.requireNonNull(function.apply(node.key, node.value));
+                    final Node<K, V> replacement = new Node<>(node.key, value, node.ttlNanos, node.timestamp);
+                    data.put(node.key, replacement);
+                    wheel.deschedule(node);
+                    wheel.schedule(replacement);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void clear() {
+            lock.lock();
+            try {
+                for (Node<K, V> node : data.values()) wheel.deschedule(node);
+                data.clear();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /** @return number of entries, after reaping expired entries */
+        @Override
+        public int size() {
+            cleanUp();
+            return data.size();
+        }
+
+        /** Reaps expired entries now, rather than waiting for the next write or read past a wheel tick */
+        public void cleanUp() {
+            lock.lock();
+            try {
+                advance();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /** Advances the wheel, must hold lock. @return current time */
+        private long advance() {
+            final long now = ticker.getAsLong();
+            wheel.advance(now, reaper);
+            nextReap = wheel.nextTick();
+            return now;
+        }
+
+        private void maybeReap(long now) {
+            if (now - nextReap >= 0 && lock.tryLock()) {
+                try {
+                    advance();
+                }
+                finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void reap(TimerWheel.Node expired) {
+            final Node<K, V> node = (Node<K, V>) expired;
+            data.remove(node.key, node);
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return new Iterator<java.util.Map.Entry<K, V>>() {
+                        private final Iterator<Node<K, V>> nodes = data.values().iterator();
+                        private final long now = ticker.getAsLong();
+                        private Node<K, V> next = nextUnexpired();
+                        private Node<K, V> last;
+
+                        private Node<K, V> nextUnexpired() {
+                            while (nodes.hasNext()) {
+                                final Node<K, V> node = nodes.next();
+                                if (!node.isExpired(now)) return node;
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public java.util.Map.Entry<K, V> next() {
+                            if (next == null) throw new NoSuchElementException();
+                            last = next;
+                            next = nextUnexpired();
+                            return new AbstractMap.SimpleImmutableEntry<>(last.key, last.value);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) throw new IllegalStateException();
+                            removeNode(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ExpiringMap.this.size();
+                }
+            };
+        }
+
+        private static final class Node<K, V> extends TimerWheel.Node {
+            final K key;
+            final V value;
+            final long ttlNanos;
+            /** time of write, or last access if expiring after access */
+            volatile long timestamp;
+
+            Node(K key, V value, long ttlNanos, long timestamp) {
+                this.key = Objects.requireNonNull(key);
+                this.value = value;
+                this.ttlNanos = ttlNanos;
+                this.timestamp = timestamp;
+            }
+
+            @Override
+            long expiresAt() {
+                return timestamp + ttlNanos;
+            }
+
+            boolean isExpired(long now) {
+                return now - expiresAt() >= 0;
+            }
+        }
+    }
+
+    /**
+     * Thread-safe fluent map that loads absent values on {@link #get(Object)} using a loader that may throw
+     * checked exceptions. Each key is loaded at most once at a time, concurrent gets of a key being loaded wait
+     * for, & share, the result of that single load. Checked loader exceptions are wrapped using the exTransformer,
+     * failed & null loads are not cached so the next get loads again. Other methods do not load.
+     * <pre>{@code
+     *  Fluent.LoadingMap<String, User> users = new Fluent.LoadingMap<>(userRepository::fetch, UncheckedIOException::new);
+     *  User dave = users.get("dave"); // fetched once, even if many threads get "dave" concurrently
+     * }</pre>
+     * Null keys & values are not permitted. A loader must not get the key it is loading, which would wait forever.
+     */
+    public static class LoadingMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V>, ConcurrentMap<K, V> {
+
+        private final Fluent.ConcurrentHashMap<K, V> data = new Fluent.ConcurrentHashMap<>();
+        private final Fluent.ConcurrentHashMap<K, CompletableFuture<V>> loading = new Fluent.ConcurrentHashMap<>();
+        private final Function<K, V> loader;
+
+        /**
+         * @param loader loads the value of an absent key, may return null to cache nothing
+         * @param exTransformer checked -> unchecked exception transformer
+         */
+        public LoadingMap(Unchecker.ThrowingFunction<? super K, ? extends V> loader,
+                          Function<Throwable, ? extends RuntimeException> exTransformer) {
+            Objects.requireNonNull(loader);
+            this.loader = Unchecker.uncheck(loader::apply, exTransformer);
+        }
+
+        /**
+         * Loading map wrapping checked loader exceptions in {@link RuntimeException}s
+         * @param loader loads the value of an absent key, may return null to cache nothing
+         */
+        public LoadingMap(Unchecker.ThrowingFunction<? super K, ? extends V> loader) {
+            this(loader, RuntimeException::new);
+        }
+
+        @Override
+        public LoadingMap<K, V> append(K key, V val) {
+            put(key, val);
+            return this;
+        }
+
+        @Override
+        public LoadingMap<K, V> appendAll(java.util.Map<? extends K, ? extends V> map) {
+            putAll(map);
+            return this;
+        }
+
+        /**
+         * Returns the value of the key, loading it if absent. If the key is already being loaded by another
+         * thread waits for that load instead.
+         * @return value of the key, or null if the loader returned null
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            final V value = data.get(key);
+            if (value != null) return value;
+
+            final CompletableFuture<V> load = new CompletableFuture<>();
+            final CompletableFuture<V> inFlight = loading.putIfAbsent((K) key, load);
+            if (inFlight != null) return awaitLoad(inFlight);
+            try {
+                // another load may have completed since data was checked
+                V loaded = data.get(key);
+                if (loaded == null) {
+                    loaded = loader.apply((K) key);
+                    if (loaded != null) data.put((K) key, loaded);
+                }
+                load.complete(loaded);
+                return loaded;
+            }
+            catch (RuntimeException | Error e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+            finally {
+                loading.remove(key, load);
+            }
+        }
+
+        private static <V> V awaitLoad(CompletableFuture<V> load) {
+            try {
+                return load.join();
+            }
+            catch (CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw e;
+            }
+        }
+
+        /** @return value of the key if present, without loading */
+        public V getIfPresent(Object key) {
+            return data.get(key);
+        }
+
+        @Override
+        public V getOrDefault(Object key, V defaultValue) {
+            return data.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return data.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return data.containsValue(value);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return data.put(key, value);
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            return data.putIfAbsent(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return data.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            return data.remove(key, value);
+        }
+
+        @Override
+        public V replace(K key, V value) {
+            return data.replace(key, value);
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            return data.replace(key, oldValue, newValue);
+        }
+
+        @Override
+        public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+            return data.computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            return data.computeIfPresent(key, remappingFunction);
+        }
+
+        @Override
+        public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            return data.compute(key, remappingFunction);
+        }
+
+        @Override
+        public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+            return data.merge(key, value, remappingFunction);
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            data.forEach(action);
+        }
+
+        @Override
+        public void clear() {
+            data.clear();
+        }
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return data.isEmpty();
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return data.entrySet();
+        }
+    }
+
+    /**
+     * Thread-safe fluent map of future values, loaded on {@link #get(Object)} asynchronously by a loader that may
+     * throw checked exceptions, run on a given executor. Each key is loaded at most once at a time, concurrent gets
+     * share the same future. Once a value is older than the refresh threshold the next get reloads it in the
+     * background, while the stale value continues to be served, so hot keys never wait on a reload.
+     * <pre>{@code
+     *  Fluent.AsyncLoadingMap<String, Rate> rates = new Fluent.AsyncLoadingMap<>(rateService::fetch, executor,
+     *      Duration.ofMinutes(1));
+     *  rates.get("GBP").thenAccept(this::price);
+     * }</pre>
+     * Checked loader exceptions are wrapped using the exTransformer & complete the future exceptionally. Failed, or
+     * null, loads are not cached, a failed refresh keeps serving the stale value. Null keys are not permitted.
+     */
+    public static class AsyncLoadingMap<K, V> extends AbstractMap<K, CompletableFuture<V>>
+        implements Fluent.Map<K, CompletableFuture<V>> {
+
+        private final Fluent.ConcurrentHashMap<K, Loaded<V>> data = new Fluent.ConcurrentHashMap<>();
+        private final Function<K, V> loader;
+        private final Executor executor;
+        private final long refreshNanos;
+        private final LongSupplier ticker;
+
+        /**
+         * @param loader loads the value of a key, may return null to cache nothing
+         * @param exTransformer checked -> unchecked exception transformer
+         * @param executor runs the loader
+         * @param refreshAfter age of a value after which a get reloads it in the background
+         * @param ticker current time in nanoseconds, eg System::nanoTime
+         */
+        public AsyncLoadingMap(Unchecker.ThrowingFunction<? super K, ? extends V> loader,
+                               Function<Throwable, ? extends RuntimeException> exTransformer,
+                               Executor executor,
+                               Duration refreshAfter,
+                               LongSupplier ticker) {
+            Objects.requireNonNull(loader);
+            if (refreshAfter.isNegative()) throw new IllegalArgumentException("negative refreshAfter " + refreshAfter);
+            this.loader = Unchecker.uncheck(loader::apply, exTransformer);
+            this.executor = Objects.requireNonNull(executor);
+            this.refreshNanos = refreshAfter.toNanos();
+            this.ticker = Objects.requireNonNull(ticker);
+        }
+
+        /**
+         * @param loader loads the value of a key, may return null to cache nothing
+         * @param exTransformer checked -> unchecked exception transformer
+         * @param executor runs the loader
+         * @param refreshAfter age of a value after which a get reloads it in the background
+         */
+        public AsyncLoadingMap(Unchecker.ThrowingFunction<? super K, ? extends V> loader,
+                               Function<Throwable, ? extends RuntimeException> exTransformer,
+                               Executor executor,
+                               Duration refreshAfter) {
+            this(loader, exTransformer, executor, refreshAfter, System::nanoTime);
+        }
+
+        /**
+         * Async loading map wrapping checked loader exceptions in {@link RuntimeException}s
+         * @param loader loads the value of a key, may return null to cache nothing
+         * @param executor runs the loader
+         * @param refreshAfter age of a value after which a get reloads it in the background
+         */
+        public AsyncLoadingMap(Unchecker.ThrowingFunction<? super K, ? extends V> loader,
+                               Executor executor,
+                               Duration refreshAfter) {
+            this(loader, RuntimeException::new, executor, refreshAfter);
+        }
+
+        @Override
+        public AsyncLoadingMap<K, V> append(K key, CompletableFuture<V> val) {
+            put(key, val);
+            return this;
+        }
+
+        @Override
+        public AsyncLoadingMap<K, V> appendAll(java.util.Map<? extends K, ? extends CompletableFuture<V>> map) {
+            putAll(map);
+            return this;
+        }
+
+        /**
+         * Returns the future value of the key, loading it if absent. If the value is due a refresh, the current
+         * value is returned while a reload runs in the background.
+         * @return future value of the key, completed with null if the loader returned null
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompletableFuture<V> get(Object key) {
+            final Loaded<V> current = data.get(key);
+            if (current != null) {
+                if (current.isRefreshDue(ticker.getAsLong(), refreshNanos)) refresh((K) key, current);
+                return current.future;
+            }
+            final Loaded<V> created = new Loaded<>(new CompletableFuture<>(), ticker.getAsLong());
+            final Loaded<V> prior = data.putIfAbsent((K) key, created);
+            if (prior != null) return prior.future;
+
+            final CompletableFuture<V> load;
+            try {
+                load = load((K) key);
+            }
+            catch (RuntimeException | Error e) {
+                // eg the executor rejected the load, fail this get without caching the placeholder
+                data.remove(key, created);
+                created.future.completeExceptionally(e);
+                return created.future;
+            }
+            load.whenComplete((value, ex) -> {
+                if (ex != null || value == null) data.remove(key, created);
+                else created.loadedAt = ticker.getAsLong();
+                if (ex != null) created.future.completeExceptionally(ex);
+                else created.future.complete(value);
+            });
+            return created.future;
+        }
+
+        private CompletableFuture<V> load(K key) {
+            return CompletableFuture.supplyAsync(() -> loader.apply(key), executor);
+        }
+
+        private void refresh(K key, Loaded<V> stale) {
+            if (!stale.refreshing.compareAndSet(false, true)) return;
+            final CompletableFuture<V> load;
+            try {
+                load = load(key);
+            }
+            catch (RuntimeException e) {
+                // eg the executor rejected the refresh, keep serving the stale value & retry on a later get
+                stale.refreshing.set(false);
+                return;
+            }
+            load.whenComplete((value, ex) -> {
+                if (ex == null && value != null) {
+                    final Loaded<V> fresh = new Loaded<>(CompletableFuture.completedFuture(value), ticker.getAsLong());
+                    data.replace(key, stale, fresh);
+                }
+                // allow a later get to retry a failed refresh
+                else stale.refreshing.set(false);
+            });
+        }
+
+        /** @return future value of the key if present, without loading or refreshing */
+        public CompletableFuture<V> getIfPresent(Object key) {
+            final Loaded<V> loaded = data.get(key);
+            return loaded == null ? null : loaded.future;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return data.containsKey(key);
+        }
+
+        /**
+         * Associates a future value with the key, which is removed if it completes exceptionally or with null
+         * @return previous future value of the key, or null
+         */
+        @Override
+        public CompletableFuture<V> put(K key, CompletableFuture<V> value) {
+            final Loaded<V> loaded = new Loaded<>(value, ticker.getAsLong());
+            final Loaded<V> previous = data.put(key, loaded);
+            // registered once mapped, so an already failed or null future is removed immediately
+            value.whenComplete((v, ex) -> {
+                if (ex != null || v == null) data.remove(key, loaded);
+                else loaded.loadedAt = ticker.getAsLong();
+            });
+            return previous == null ? null : previous.future;
+        }
+
+        @Override
+        public CompletableFuture<V> remove(Object key) {
+            final Loaded<V> removed = data.remove(key);
+            return removed == null ? null : removed.future;
+        }
+
+        @Override
+        public void clear() {
+            data.clear();
+        }
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, CompletableFuture<V>>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, CompletableFuture<V>>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, CompletableFuture<V>>> iterator() {
+                    final Iterator<java.util.Map.Entry<K, Loaded<V>>> entries = data.entrySet().iterator();
+                    return new Iterator<java.util.Map.Entry<K, CompletableFuture<V>>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public java.util.Map.Entry<K, CompletableFuture<V>> next() {
+                            final java.util.Map.Entry<K, Loaded<V>> entry = entries.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().future);
+                        }
+
+                        @Override
+                        public void remove() {
+                            entries.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return data.size();
+                }
+            };
+        }
+
+        /** Future value of a key, with the time it completed */
+        private static final class Loaded<V> {
+            final CompletableFuture<V> future;
+            final AtomicBoolean refreshing = new AtomicBoolean();
+            /** time the future completed successfully, or was created if not yet complete */
+            volatile long loadedAt;
+
+            Loaded(CompletableFuture<V> future, long loadedAt) {
+                this.future = future;
+                this.loadedAt = loadedAt;
+            }
+
+            boolean isRefreshDue(long now, long refreshNanos) {
+                return future.isDone() && !future.isCompletedExceptionally() && now - loadedAt >= refreshNanos
+                    && !refreshing.get();
+            }
+        }
+    }
+
+    /**
+     * Fluent map storing only an array of values, its keys being held by a shape shared with every other
+     * ShapedMap that was given the same keys in the same order. Adding a key moves the map to a child shape,
+     * cached in its current shape, so maps built alike, eg many records with "id", "name", "age" keys, all reach the
+     * same shape & store none of the keys or hash table of a HashMap themselves.
+     * <pre>{@code
+     *  Map<String, Object> customer = new Fluent.ShapedMap<String, Object>()
+     *      .append("name", "Darrel")
+     *      .append("age", 33);
+     * }</pre>
+     * Shapes are retained for the life of the JVM, so this suits maps of a bounded set of keys, not maps of
+     * arbitrary data keys. Keys are compared using equals, iteration is in insertion order. Null keys are not
+     * permitted, null values are. Not thread-safe.
+     */
+    public static class ShapedMap<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V> {
+
+        private static final Object[] NO_VALUES = {};
+
+        private Shape shape = Shape.ROOT;
+        /** values by shape slot, may be longer than the shape */
+        private Object[] values = NO_VALUES;
+
+        public ShapedMap() {}
+
+        public ShapedMap(java.util.Map<? extends K, ? extends V> map) {
+            putAll(map);
+        }
+
+        /** @return whether the other map has the same keys in the same order, ie they share a shape */
+        public boolean hasSameShape(ShapedMap<?, ?> other) {
+            return shape == other.shape;
+        }
+
+        @Override
+        public int size() {
+            return shape.keys.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return shape.indexOf(key) >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            final int slot = shape.indexOf(key);
+            return slot < 0 ? null : (V) values[slot];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getOrDefault(Object key, V defaultValue) {
+            final int slot = shape.indexOf(key);
+            return slot < 0 ? defaultValue : (V) values[slot];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V put(K key, V value) {
+            final int slot = shape.indexOf(Objects.requireNonNull(key));
+            if (slot >= 0) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            shape = shape.with(key);
+            final int size = shape.keys.length;
+            if (values.length < size) {
+                // exact up to small sizes, as most shaped maps are small records
+                values = Arrays.copyOf(values, size <= 8 ? size : size + (size >> 1));
+            }
+            values[size - 1] = value;
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            final int slot = shape.indexOf(key);
+            if (slot < 0) return null;
+            final V removed = (V) values[slot];
+            final Object[] keys = shape.keys;
+            Shape without = Shape.ROOT;
+            for (int i = 0; i < keys.length; ++i) {
+                if (i != slot) without = without.with(keys[i]);
+            }
+            System.arraycopy(values, slot + 1, values, slot, keys.length - slot - 1);
+            values[keys.length - 1] = null;
+            shape = without;
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            shape = Shape.ROOT;
+            values = NO_VALUES;
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return new Iterator<java.util.Map.Entry<K, V>>() {
+                        private int next;
+                        /** slot of the entry last returned by next, -1 if none or removed */
+                        private int lastReturned = -1;
+                        private Shape expectedShape = shape;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < expectedShape.keys.length;
+                        }
+
+                        @Override
+                        public java.util.Map.Entry<K, V> next() {
+                            if (shape != expectedShape) throw new ConcurrentModificationException();
+                            if (next >= shape.keys.length) throw new NoSuchElementException();
+                            lastReturned = next;
+                            return new ShapedEntry(next++);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (lastReturned < 0) throw new IllegalStateException();
+                            if (shape != expectedShape) throw new ConcurrentModificationException();
+                            ShapedMap.this.remove(shape.keys[lastReturned]);
+                            next = lastReturned;
+                            lastReturned = -1;
+                            expectedShape = shape;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return shape.keys.length;
+                }
+            };
+        }
+
+        /** Entry of a slot, valid while the map's shape is unchanged */
+        private final class ShapedEntry implements java.util.Map.Entry<K, V> {
+            private final int slot;
+
+            ShapedEntry(int slot) {
+                this.slot = slot;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K getKey() {
+                return (K) shape.keys[slot];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V getValue() {
+                return (V) values[slot];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof java.util.Map.Entry)) return false;
+                final java.util.Map.Entry<?, ?> other = (java.util.Map.Entry<?, ?>) o;
+                return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+            }
+
+            @Override
+            public String toString() {
+                return getKey() + "=" + getValue();
+            }
+        }
+
+        /**
+         * Immutable ordered key set, mapping each key to its slot, with cached transitions to the shapes of one
+         * more key. Shapes form a tree from the empty root shared by all ShapedMaps.
+         */
+        static final class Shape {
+            static final Shape ROOT = new Shape(new Object[0]);
+
+            /** Shapes up to this many keys are searched linearly, rather than by a hash index */
+            private static final int LINEAR_MAX_KEYS = 8;
+
+            final Object[] keys;
+            /** key -> slot, null if searched linearly */
+            private final java.util.HashMap<Object, Integer> index;
+            private final java.util.concurrent.ConcurrentHashMap<Object, Shape> transitions =
+                new java.util.concurrent.ConcurrentHashMap<>(2);
+
+            private Shape(Object[] keys) {
+                this.keys = keys;
+                if (keys.length <= LINEAR_MAX_KEYS) this.index = null;
+                else {
+                    this.index = new java.util.HashMap<>(keys.length * 2);
+                    for (int i = 0; i < keys.length; ++i) index.put(keys[i], i);
+                }
+            }
+
+            int indexOf(Object key) {
+                if (index != null) {
+                    final Integer slot = index.get(key);
+                    return slot == null ? -1 : slot;
+                }
+                for (int i = 0; i < keys.length; ++i) {
+                    if (keys[i].equals(key)) return i;
+                }
+                return -1;
+            }
+
+            /** @return shape of these keys followed by the new key */
+            Shape with(Object key) {
+                final Shape child = transitions.get(key);
+                if (child != null) return child;
+                return transitions.computeIfAbsent(key, k -> {
+                    final Object[] childKeys = Arrays.copyOf(keys, keys.length + 1);
+                    childKeys[keys.length] = k;
+                    return new Shape(childKeys);
+                });
+            }
+        }
+    }
+
+    /**
+     * Batch of row maps stored column by column. Each key of the appended rows becomes a column, held in a long[]
+     * or double[] while every value of that key is a boxed integral, or floating point, number of the same type,
+     * otherwise in an Object[]. Scans of a column run over contiguous arrays, rather than chasing each row map's
+     * entries, & filters select rows into a BitSet that aggregates accept.
+     * <pre>{@code
+     *  Fluent.MapBatch<String> batch = new Fluent.MapBatch<String>().appendAll(customers);
+     *  BitSet adults = batch.whereLong("age", age -> age >= 18);
+     *  double adultBalance = batch.sumDouble("balance", adults);
+     * }</pre>
+     * {@link #row(int)} returns a read-only Fluent.Map view of a row, equal to the appended map. Not thread-safe.
+     */
+    public static class MapBatch<K> {
+
+        private final java.util.LinkedHashMap<K, Column> columns = new java.util.LinkedHashMap<>();
+        private int rows;
+
+        /**
+         * Appends a row, the map itself is not retained
+         * @return self-reference
+         */
+        public MapBatch<K> append(java.util.Map<? extends K, ?> row) {
+            for (java.util.Map.Entry<? extends K, ?> entry : row.entrySet()) {
+                Column column = columns.get(entry.getKey());
+                if (column == null) {
+                    column = new Column(rows);
+                    columns.put(entry.getKey(), column);
+                }
+                column.add(entry.getValue());
+            }
+            ++rows;
+            if (row.size() < columns.size()) {
+                for (Column column : columns.values()) {
+                    if (column.size < rows) column.addAbsent();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Appends each row in order
+         * @return self-reference
+         */
+        public MapBatch<K> appendAll(Collection<? extends java.util.Map<? extends K, ?>> rows) {
+            for (java.util.Map<? extends K, ?> row : rows) append(row);
+            return this;
+        }
+
+        /** @return number of rows */
+        public int size() {
+            return rows;
+        }
+
+        /** @return keys of all rows, in order of first appearance */
+        public Set<K> columns() {
+            return Collections.unmodifiableSet(columns.keySet());
+        }
+
+        /** @return read-only view of the row at the index, equal to the map appended */
+        public Fluent.Map<K, Object> row(int index) {
+            if (index < 0 || index >= rows) throw new IndexOutOfBoundsException("row " + index + " of " + rows);
+            return new Row(index);
+        }
+
+        /** @return read-only view of all rows */
+        public List<Fluent.Map<K, Object>> rows() {
+            return new AbstractList<Fluent.Map<K, Object>>() {
+                @Override
+                public Fluent.Map<K, Object> get(int index) {
+                    return row(index);
+                }
+
+                @Override
+                public int size() {
+                    return rows;
+                }
+            };
+        }
+
+        /** @return read-only view of a column's values by row, null where a row lacks the key */
+        public List<Object> column(K key) {
+            final Column column = columns.get(key);
+            return new AbstractList<Object>() {
+                @Override
+                public Object get(int index) {
+                    if (index < 0 || index >= rows) throw new IndexOutOfBoundsException("row " + index + " of " + rows);
+                    return column == null ? null : column.get(index);
+                }
+
+                @Override
+                public int size() {
+                    return rows;
+                }
+            };
+        }
+
+        /**
+         * @param key column
+         * @param predicate test of a row's value, as Number#longValue
+         * @return rows with a numeric value of the column that passes the predicate
+         */
+        public BitSet whereLong(K key, LongPredicate predicate) {
+            final BitSet matches = new BitSet(rows);
+            final Column column = columns.get(key);
+            if (column == null) return matches;
+            if (column.kind == Column.LONG) {
+                final long[] longs = column.longs;
+                for (int row = 0; row < rows; ++row) {
+                    if (column.isPresent(row) && predicate.test(longs[row])) matches.set(row);
+                }
+            }
+            else {
+                for (int row = 0; row < rows; ++row) {
+                    final Object value = column.get(row);
+                    if (value instanceof Number && predicate.test(((Number) value).longValue())) matches.set(row);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * @param key column
+         * @param predicate test of a row's value, as Number#doubleValue
+         * @return rows with a numeric value of the column that passes the predicate
+         */
+        public BitSet whereDouble(K key, DoublePredicate predicate) {
+            final BitSet matches = new BitSet(rows);
+            final Column column = columns.get(key);
+            if (column == null) return matches;
+            if (column.kind == Column.DOUBLE) {
+                final double[] doubles = column.doubles;
+                for (int row = 0; row < rows; ++row) {
+                    if (column.isPresent(row) && predicate.test(doubles[row])) matches.set(row);
+                }
+            }
+            else {
+                for (int row = 0; row < rows; ++row) {
+                    final Object value = column.get(row);
+                    if (value instanceof Number && predicate.test(((Number) value).doubleValue())) matches.set(row);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * @param key column
+         * @param predicate test of a row's value
+         * @return rows having the column with a value that passes the predicate
+         */
+        public BitSet where(K key, Predicate<Object> predicate) {
+            final BitSet matches = new BitSet(rows);
+            final Column column = columns.get(key);
+            if (column == null) return matches;
+            for (int row = 0; row < rows; ++row) {
+                if (column.isPresent(row) && predicate.test(column.get(row))) matches.set(row);
+            }
+            return matches;
+        }
+
+        /** @return sum of the column's numeric values, as Number#longValue, of all rows */
+        public long sumLong(K key) {
+            return sumLong(key, null);
+        }
+
+        /**
+         * @param key column
+         * @param selected rows to sum, or null for all
+         * @return sum of the column's numeric values, as Number#longValue, of the selected rows
+         */
+        public long sumLong(K key, BitSet selected) {
+            final Column column = columns.get(key);
+            if (column == null) return 0;
+            long sum = 0;
+            if (column.kind == Column.LONG) {
+                // absent rows hold 0
+                final long[] longs = column.longs;
+                if (selected == null) {
+                    for (int row = 0; row < rows; ++row) sum += longs[row];
+                }
+                else {
+                    for (int row = selected.nextSetBit(0); row >= 0 && row < rows; row = selected.nextSetBit(row + 1)) {
+                        sum += longs[row];
+                    }
+                }
+                return sum;
+            }
+            for (int row = first(selected); row >= 0 && row < rows; row = next(selected, row)) {
+                final Object value = column.get(row);
+                if (value instanceof Number) sum += ((Number) value).longValue();
+            }
+            return sum;
+        }
+
+        /** @return sum of the column's numeric values, as Number#doubleValue, of all rows */
+        public double sumDouble(K key) {
+            return sumDouble(key, null);
+        }
+
+        /**
+         * @param key column
+         * @param selected rows to sum, or null for all
+         * @return sum of the column's numeric values, as Number#doubleValue, of the selected rows
+         */
+        public double sumDouble(K key, BitSet selected) {
+            final Column column = columns.get(key);
+            if (column == null) return 0;
+            double sum = 0;
+            if (column.kind == Column.DOUBLE || column.kind == Column.LONG) {
+                // absent rows hold 0
+                final double[] doubles = column.doubles;
+                final long[] longs = column.longs;
+                for (int row = first(selected); row >= 0 && row < rows; row = next(selected, row)) {
+                    sum += doubles != null ? doubles[row] : longs[row];
+                }
+                return sum;
+            }
+            for (int row = first(selected); row >= 0 && row < rows; row = next(selected, row)) {
+                final Object value = column.get(row);
+                if (value instanceof Number) sum += ((Number) value).doubleValue();
+            }
+            return sum;
+        }
+
+        /**
+         * @param key column
+         * @param selected rows to summarize, or null for all
+         * @return count, sum, min, max & average of the column's numeric values, as Number#longValue, of the
+         *     selected rows
+         */
+        public LongSummaryStatistics longStats(K key, BitSet selected) {
+            final LongSummaryStatistics stats = new LongSummaryStatistics();
+            final Column column = columns.get(key);
+            if (column == null) return stats;
+            for (int row = first(selected); row >= 0 && row < rows; row = next(selected, row)) {
+                if (column.kind == Column.LONG) {
+                    if (column.isPresent(row)) stats.accept(column.longs[row]);
+                }
+                else {
+                    final Object value = column.get(row);
+                    if (value instanceof Number) stats.accept(((Number) value).longValue());
+                }
+            }
+            return stats;
+        }
+
+        /**
+         * @param key column
+         * @param selected rows to summarize, or null for all
+         * @return count, sum, min, max & average of the column's numeric values, as Number#doubleValue, of the
+         *     selected rows
+         */
+        public DoubleSummaryStatistics doubleStats(K key, BitSet selected) {
+            final DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+            final Column column = columns.get(key);
+            if (column == null) return stats;
+            for (int row = first(selected); row >= 0 && row < rows; row = next(selected, row)) {
+                if (column.kind == Column.DOUBLE) {
+                    if (column.isPresent(row)) stats.accept(column.doubles[row]);
+                }
+                else {
+                    final Object value = column.get(row);
+                    if (value instanceof Number) stats.accept(((Number) value).doubleValue());
+                }
+            }
+            return stats;
+        }
+
+        /** @return first selected row, all rows if selected is null */
+        private int first(BitSet selected) {
+            return selected == null ? (rows == 0 ? -1 : 0) : selected.nextSetBit(0);
+        }
+
+        /** @return next selected row after the input, all rows if selected is null */
+        private static int next(BitSet selected, int row) {
+            return selected == null ? row + 1 : selected.nextSetBit(row + 1);
+        }
+
+        /** Read-only view of a row */
+        private final class Row extends AbstractMap<K, Object> implements Fluent.Map<K, Object> {
+            private final int index;
+
+            Row(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public Object get(Object key) {
+                final Column column = columns.get(key);
+                return column == null ? null : column.get(index);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                final Column column = columns.get(key);
+                return column != null && column.isPresent(index);
+            }
+
+            @Override
+            public Set<java.util.Map.Entry<K, Object>> entrySet() {
+                return new AbstractSet<java.util.Map.Entry<K, Object>>() {
+                    @Override
+                    public Iterator<java.util.Map.Entry<K, Object>> iterator() {
+                        final Iterator<java.util.Map.Entry<K, Column>> all = columns.entrySet().iterator();
+                        return new Iterator<java.util.Map.Entry<K, Object>>() {
+                            private java.util.Map.Entry<K, Column> next = advance();
+
+                            private java.util.Map.Entry<K, Column> advance() {
+                                while (all.hasNext()) {
+                                    final java.util.Map.Entry<K, Column> column = all.next();
+                                    if (column.getValue().isPresent(index)) return column;
+                                }
+                                return null;
+                            }
+
+                            @Override
+                            public boolean hasNext() {
+                                return next != null;
+                            }
+
+                            @Override
+                            public java.util.Map.Entry<K, Object> next() {
+                                if (next == null) throw new NoSuchElementException();
+                                final java.util.Map.Entry<K, Column> column = next;
+                                next = advance();
+                                return new AbstractMap.SimpleImmutableEntry<>(column.getKey(),
+                                    column.getValue().get(index));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        int size = 0;
+                        for (Column column : columns.values()) {
+                            if (column.isPresent(index)) ++size;
+                        }
+                        return size;
+                    }
+                };
+            }
+        }
+
+        /**
+         * Values of a key by row, stored primitively while they are all boxed numbers of the same integral, or
+         * floating point, type. Moves to Object storage on the first value that is not
+         */
+        private static final class Column {
+            static final int NONE = -1, LONG = 0, DOUBLE = 1, OBJECT = 2;
+
+            int kind = NONE;
+            /** type of every value of a LONG or DOUBLE column */
+            Class<?> boxType;
+            long[] longs;
+            double[] doubles;
+            Object[] objects;
+            /** rows without this key, null while there are none */
+            BitSet absent;
+            int size;
+
+            /** @param absentRows number of existing rows, without this key */
+            Column(int absentRows) {
+                if (absentRows > 0) {
+                    absent = new BitSet();
+                    absent.set(0, absentRows);
+                    size = absentRows;
+                }
+            }
+
+            private static int kindOf(Object value) {
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    return LONG;
+                }
+                if (value instanceof Double || value instanceof Float) return DOUBLE;
+                return OBJECT;
+            }
+
+            void add(Object value) {
+                if (kind == NONE) {
+                    kind = kindOf(value);
+                    if (kind != OBJECT) boxType = value.getClass();
+                }
+                else if (kind != OBJECT && (value == null || value.getClass() != boxType)) toObjects();
+                ensureCapacity(size + 1);
+                if (kind == LONG) longs[size] = ((Number) value).longValue();
+                else if (kind == DOUBLE) doubles[size] = ((Number) value).doubleValue();
+                else objects[size] = value;
+                ++size;
+            }
+
+            void addAbsent() {
+                if (absent == null) absent = new BitSet();
+                absent.set(size);
+                if (kind != NONE) ensureCapacity(size + 1);
+                ++size;
+            }
+
+            boolean isPresent(int row) {
+                return absent == null || !absent.get(row);
+            }
+
+            /** @return value of the row, or null if absent */
+            Object get(int row) {
+                if (!isPresent(row)) return null;
+                switch (kind) {
+                    case LONG:
+                        final long l = longs[row];
+                        if (boxType == Long.class) return l;
+                        if (boxType == Integer.class) return (int) l;
+                        if (boxType == Short.class) return (short) l;
+                        return (byte) l;
+                    case DOUBLE:
+                        return boxType == Double.class ? (Object) doubles[row] : (Object) (float) doubles[row];
+                    default:
+                        return objects[row];
+                }
+            }
+
+            private void toObjects() {
+                final Object[] values = new Object[Math.max(16, size + 1)];
+                for (int row = 0; row < size; ++row) values[row] = get(row);
+                objects = values;
+                longs = null;
+                doubles = null;
+                boxType = null;
+                kind = OBJECT;
+            }
+
+            private void ensureCapacity(int capacity) {
+                switch (kind) {
+                    case LONG:
+                        if (longs == null) longs = new long[Math.max(16, capacity)];
+                        else if (longs.length < capacity) longs = Arrays.copyOf(longs, Math.max(capacity, longs.length * 2));
+                        break;
+                    case DOUBLE:
+                        if (doubles == null) doubles = new double[Math.max(16, capacity)];
+                        else if (doubles.length < capacity) {
+                            doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+                        }
+                        break;
+                    default:
+                        if (objects == null) objects = new Object[Math.max(16, capacity)];
+                        else if (objects.length < capacity) {
+                            objects = Arrays.copyOf(objects, Math.max(capacity, objects.length * 2));
+                        }
+                }
+            }
+        }
+    }
+
+    /** Base of the primitive map java.util.Map views */
+    private abstract static class PrimitiveMapView<K, V> extends AbstractMap<K, V> implements Fluent.Map<K, V> {
+
+        abstract Iterator<java.util.Map.Entry<K, V>> entryIterator();
+
+        /** Replaces through {@link #put(Object, Object)}, entries are immutable snapshots */
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            Objects.requireNonNull(function);
+            for (java.util.Map.Entry<K, V> entry : entrySet()) {
+                put(entry.getKey(), function.apply(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<java.util.Map.Entry<K, V>>() {
+                @Override
+                public Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return entryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return PrimitiveMapView.this.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates the occupied slots of an open-addressing table, preceded by an out-of-table zero/null key entry.
+     * Slots are visited cyclically starting from an empty slot, so no probe cluster wraps past the end of the
+     * iteration & a backward shift removal only moves entries not yet visited. Fails fast on structural
+     * modification other than through {@link #remove()}.
+     */
+    private abstract static class SlotIterator<E> implements Iterator<E> {
+        private static final int NONE = -2;
+        private static final int ZERO = -1;
+
+        private final int mask;
+        private final int start;
+        private boolean zeroPending;
+        /** slots are visited in order start + position, wrapping at the table end */
+        private int position = -1;
+        /** slot of the last returned entry, ZERO for the zero key entry or NONE */
+        private int lastReturned = NONE;
+        private int expectedModCount;
+
+        SlotIterator(int capacity, boolean hasZeroKey) {
+            this.mask = capacity - 1;
+            this.zeroPending = hasZeroKey;
+            this.expectedModCount = modCount();
+            // the load factor keeps at least one slot empty
+            int start = 0;
+            while (occupied(start)) ++start;
+            this.start = start;
+            advance();
+        }
+
+        abstract boolean occupied(int slot);
+
+        abstract E zeroEntry();
+
+        abstract E entry(int slot);
+
+        /** @return count of structural modifications of the map */
+        abstract int modCount();
+
+        /** Removes the entry of the slot by backward shift deletion */
+        void removeEntry(int slot) {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        void removeZeroEntry() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        private int slot(int position) {
+            return (start + position) & mask;
+        }
+
+        private void advance() {
+            do ++position; while (position <= mask && !occupied(slot(position)));
+        }
+
+        private void checkForComodification() {
+            if (modCount() != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return zeroPending || position <= mask;
+        }
+
+        @Override
+        public E next() {
+            checkForComodification();
+            if (zeroPending) {
+                zeroPending = false;
+                lastReturned = ZERO;
+                return zeroEntry();
+            }
+            if (position > mask) throw new NoSuchElementException();
+            final int slot = slot(position);
+            final E entry = entry(slot);
+            lastReturned = slot;
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == NONE) throw new IllegalStateException();
+            checkForComodification();
+            if (lastReturned == ZERO) removeZeroEntry();
+            else {
+                removeEntry(lastReturned);
+                // the shift may have moved unvisited entries into the removed slot or later empty ones
+                position = ((lastReturned - start) & mask) - 1;
+                advance();
+            }
+            lastReturned = NONE;
+            expectedModCount = modCount();
+        }
+    }
+
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** @return power of 2 table capacity holding expectedSize entries under the load factor */
+    private static int tableSize(int expectedSize) {
+        final int minCapacity = (int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR) + 1;
+        return Integer.highestOneBit(minCapacity - 1) << 1;
+    }
+
+    private static int mix(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int mix(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
     private Fluent() {}
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.util.Objects;
+
+/**
+ * Approximate access frequency of keys, the TinyLFU count-min sketch. Each key maps to 4 of the 16 4-bit
+ * counters in each of 4 longs, estimating frequency as the minimum of its counters. Once the number of
+ * increments reaches 10x the cache size all counters are halved, so the sketch favours recent popularity.
+ * Not thread-safe.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+    /** entries the sketch is initially sized for, a 32KB table */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final int maximumCapacity;
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int increments;
+
+    /**
+     * Sized for at most {@value #INITIAL_CAPACITY} entries, growing with {@link #ensureCapacity(long)} as the cache
+     * fills beyond that, so a cache with a large maximum weight does not allocate a large table up front
+     * @param maximumSize maximum cache entries the sketch should discriminate between
+     */
+    FrequencySketch(long maximumSize) {
+        maximumCapacity = (int) Math.max(8, Math.min(maximumSize, 1 << 26));
+        resize(Math.min(maximumCapacity, INITIAL_CAPACITY));
+    }
+
+    /**
+     * Grows the sketch, if needed, to discriminate between the number of cache entries, up to the maximum.
+     * Growth discards the recorded frequencies.
+     * @param size current number of cache entries
+     */
+    void ensureCapacity(long size) {
+        final int capacity = (int) Math.min(size, maximumCapacity);
+        if (capacity > table.length) resize(capacity);
+    }
+
+    private void resize(int capacity) {
+        table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = 10 * Math.min(table.length, maximumCapacity);
+        increments = 0;
+    }
+
+    private static int spread(Object key) {
+        int h = Objects.hashCode(key) * 0x9e3779b9;
+        return h ^ (h >>> 17);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /** @return estimated recent access count of the key, at most 15 */
+    int frequency(Object key) {
+        final int hash = spread(key);
+        final int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; ++i) {
+            final int offset = (start + i) << 2;
+            frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offset) & 0xf));
+        }
+        return frequency;
+    }
+
+    /** Records an access of the key */
+    void increment(Object key) {
+        final int hash = spread(key);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; ++i) {
+            final int index = indexOf(hash, i);
+            final int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xf) != MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++increments == sampleSize) reset();
+    }
+
+    /** Halves every counter, ageing the frequencies */
+    private void reset() {
+        for (int i = 0; i < table.length; ++i) table[i] = (table[i] >>> 1) & RESET_MASK;
+        increments /= 2;
+    }
+}
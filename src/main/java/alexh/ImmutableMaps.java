@@ -0,0 +1,355 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Compact immutable java.util.Map implementations, produced by {@link Fluent.Map#freeze()} &
+ * {@link Fluent#deepFreeze(Object)}
+ */
+final class ImmutableMaps {
+
+    /** Maps with up to this many entries are stored without a hash index & searched linearly */
+    static final int SMALL_MAP_MAX_SIZE = 8;
+
+    private static final SmallMap<?, ?> EMPTY = new SmallMap<>(new Object[0]);
+
+    /**
+     * @param map source map
+     * @return immutable copy of the input map, keys are compared with equals, iteration order is retained
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> java.util.Map<K, V> copyOf(java.util.Map<? extends K, ? extends V> map) {
+        // toArray takes a consistent snapshot even if a concurrent map changes size meanwhile
+        final Object[] entries = map.entrySet().toArray();
+        if (entries.length == 0) return (java.util.Map<K, V>) EMPTY;
+        final Object[] kvs = new Object[entries.length * 2];
+        for (int i = 0; i < entries.length; ++i) {
+            java.util.Map.Entry<?, ?> entry = (java.util.Map.Entry<?, ?>) entries[i];
+            kvs[i * 2] = entry.getKey();
+            kvs[i * 2 + 1] = entry.getValue();
+        }
+        return ofKvs(kvs);
+    }
+
+    /**
+     * @param kvs key, value pairs, used as the storage of the returned map so must not be modified afterwards
+     * @return immutable map of the pairs, on duplicate keys the later value is retained at the position of the first
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> java.util.Map<K, V> ofKvs(Object[] kvs) {
+        if (kvs.length == 0) return (java.util.Map<K, V>) EMPTY;
+        return kvs.length <= SMALL_MAP_MAX_SIZE * 2 ? new SmallMap<>(kvs) : new HashedMap<>(kvs);
+    }
+
+    static int spread(Object key) {
+        if (key == null) return 0;
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Immutable map storing keys & values alternately in a single array, in iteration order
+     */
+    abstract static class ArrayMap<K, V> extends AbstractMap<K, V> {
+        /** key, value, key, value ... */
+        final Object[] kvs;
+        private int hashCode;
+
+        ArrayMap(Object[] kvs) {
+            this.kvs = kvs;
+        }
+
+        /** @return index of the key in kvs, or -1 if absent */
+        abstract int indexOf(Object key);
+
+        @Override
+        public int size() {
+            return kvs.length >> 1;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return kvs.length == 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            final int index = indexOf(key);
+            return index < 0 ? null : (V) kvs[index + 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getOrDefault(Object key, V defaultValue) {
+            final int index = indexOf(key);
+            return index < 0 ? defaultValue : (V) kvs[index + 1];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            for (int i = 1; i < kvs.length; i += 2) {
+                if (Objects.equals(value, kvs[i])) return true;
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (int i = 0; i < kvs.length; i += 2) {
+                action.accept((K) kvs[i], (V) kvs[i + 1]);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            int h = hashCode;
+            if (h == 0 && kvs.length != 0) {
+                for (int i = 0; i < kvs.length; i += 2) {
+                    h += Objects.hashCode(kvs[i]) ^ Objects.hashCode(kvs[i + 1]);
+                }
+                hashCode = h;
+            }
+            return h;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new Iterator<Entry<K, V>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < kvs.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<K, V> next() {
+                            if (next >= kvs.length) throw new NoSuchElementException();
+                            final Entry<K, V> entry = new SimpleImmutableEntry<>((K) kvs[next], (V) kvs[next + 1]);
+                            next += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ArrayMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Entry)) return false;
+                    final Entry<?, ?> entry = (Entry<?, ?>) o;
+                    final int index = indexOf(entry.getKey());
+                    return index >= 0 && Objects.equals(kvs[index + 1], entry.getValue());
+                }
+            };
+        }
+
+        @Override
+        public V put(K key, V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V remove(Object key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putAll(java.util.Map<? extends K, ? extends V> m) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V replace(K key, V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Array map without an index, keys are found by linear scan which for a handful of entries is cheaper than
+     * hashing & avoids the index allocation
+     */
+    static final class SmallMap<K, V> extends ArrayMap<K, V> {
+
+        /**
+         * @param kvs key, value pairs, on duplicate keys the later value is retained at the position of the first
+         */
+        SmallMap(Object[] kvs) {
+            super(dedupe(kvs));
+        }
+
+        private static Object[] dedupe(Object[] kvs) {
+            int size = 0;
+            for (int i = 0; i < kvs.length; i += 2) {
+                final int existing = indexOf(kvs, size * 2, kvs[i]);
+                if (existing >= 0) kvs[existing + 1] = kvs[i + 1];
+                else {
+                    kvs[size * 2] = kvs[i];
+                    kvs[size * 2 + 1] = kvs[i + 1];
+                    ++size;
+                }
+            }
+            return size * 2 == kvs.length ? kvs : Arrays.copyOf(kvs, size * 2);
+        }
+
+        private static int indexOf(Object[] kvs, int end, Object key) {
+            if (key == null) {
+                for (int i = 0; i < end; i += 2) {
+                    if (kvs[i] == null) return i;
+                }
+            }
+            else {
+                for (int i = 0; i < end; i += 2) {
+                    if (key.equals(kvs[i])) return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int indexOf(Object key) {
+            return indexOf(kvs, kvs.length, key);
+        }
+    }
+
+    /**
+     * Array map with an open-addressing (linear probe) index of kvs positions, index slots hold
+     * {@code entry number + 1} with 0 marking an empty slot. The index is kept at most half full.
+     */
+    static final class HashedMap<K, V> extends ArrayMap<K, V> {
+        private final int[] index;
+
+        /**
+         * @param kvs key, value pairs, on duplicate keys the later value is retained at the position of the first
+         */
+        HashedMap(Object[] kvs) {
+            this(kvs, new int[tableSize(kvs.length >> 1)]);
+        }
+
+        private HashedMap(Object[] kvs, int[] index) {
+            super(dedupe(kvs, index));
+            this.index = index;
+        }
+
+        private static int tableSize(int entries) {
+            return Integer.highestOneBit(Math.max(entries, 1) * 2 - 1) << 1;
+        }
+
+        /** populates the index returning the, possibly trimmed, kvs array */
+        private static Object[] dedupe(Object[] kvs, int[] index) {
+            final int mask = index.length - 1;
+            int size = 0;
+            for (int i = 0; i < kvs.length; i += 2) {
+                final Object key = kvs[i];
+                int slot = spread(key) & mask;
+                while (true) {
+                    final int entry = index[slot];
+                    if (entry == 0) {
+                        kvs[size * 2] = key;
+                        kvs[size * 2 + 1] = kvs[i + 1];
+                        index[slot] = ++size;
+                        break;
+                    }
+                    if (Objects.equals(key, kvs[(entry - 1) * 2])) {
+                        kvs[(entry - 1) * 2 + 1] = kvs[i + 1];
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+            return size * 2 == kvs.length ? kvs : Arrays.copyOf(kvs, size * 2);
+        }
+
+        @Override
+        int indexOf(Object key) {
+            final int mask = index.length - 1;
+            int slot = spread(key) & mask;
+            int entry;
+            while ((entry = index[slot]) != 0) {
+                final int kvIndex = (entry - 1) * 2;
+                if (Objects.equals(key, kvs[kvIndex])) return kvIndex;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    private ImmutableMaps() {}
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Blocking map of a collection with bounded concurrency. Up to maxConcurrency workers are submitted to the
+ * executor, each pulling the next input until all are mapped or one fails. The first failure interrupts the
+ * other in-flight calls & stops further inputs being started. Workers running in a ForkJoinPool, & a caller
+ * waiting in one, block via ForkJoinPool#managedBlock so the pool can compensate rather than starve.
+ */
+final class ParallelMap<In, Out> {
+
+    /** Shared cached pool of daemon threads for blocking calls, idle threads expire after 60s */
+    private static final class BlockingExecutor {
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "unchecker-parallel-map-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static Executor blockingExecutor() {
+        return BlockingExecutor.INSTANCE;
+    }
+
+    /** Executors#newVirtualThreadPerTaskExecutor, available from Java 21, or null */
+    private static final MethodHandle NEW_VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorFactory();
+
+    private static MethodHandle virtualThreadExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /** @return new executor starting a virtual thread per task, or null before Java 21 */
+    static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) return null;
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invokeExact();
+        }
+        catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs every task concurrently, each on a virtual thread when available, otherwise on the blocking executor.
+     * The scope of the tasks is this call, all have finished when it returns. The first failure interrupts the rest.
+     */
+    static <T> List<T> forkAll(List<Unchecker.ThrowingSupplier<T>> tasks,
+                               Function<Throwable, ? extends RuntimeException> exTransformer) {
+        final ExecutorService virtualThreads = newVirtualThreadExecutor();
+        try {
+            return map(tasks, Unchecker.ThrowingSupplier::get, Math.max(1, tasks.size()),
+                virtualThreads != null ? virtualThreads : blockingExecutor(), true, exTransformer);
+        }
+        finally {
+            if (virtualThreads != null) virtualThreads.shutdown();
+        }
+    }
+
+    /**
+     * Runs every task concurrently, as {@link #forkAll}, returning the first successful result & interrupting the
+     * rest. If all fail throws the first failure, with the others suppressed.
+     */
+    static <T> T forkAny(List<Unchecker.ThrowingSupplier<T>> tasks,
+                         Function<Throwable, ? extends RuntimeException> exTransformer) {
+        if (tasks.isEmpty()) throw new IllegalArgumentException("no tasks");
+        Objects.requireNonNull(exTransformer);
+        final ExecutorService virtualThreads = newVirtualThreadExecutor();
+        final CompletionService<Unchecker.Result<T>> completion =
+            new ExecutorCompletionService<>(virtualThreads != null ? virtualThreads : blockingExecutor());
+        final List<Future<Unchecker.Result<T>>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Unchecker.ThrowingSupplier<T> task : tasks) {
+                futures.add(completion.submit(() -> Unchecker.attemptGet(task)));
+            }
+            Throwable failure = null;
+            for (int i = 0; i < futures.size(); ++i) {
+                final Unchecker.Result<T> result;
+                try {
+                    result = completion.take().get();
+                }
+                catch (ExecutionException e) {
+                    // an Error thrown by a task
+                    throw (Error) e.getCause();
+                }
+                if (result.isSuccess()) return result.orElseThrow();
+                if (failure == null) failure = result.getFailure();
+                else failure.addSuppressed(result.getFailure());
+            }
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            throw exTransformer.apply(failure);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw exTransformer.apply(e);
+        }
+        finally {
+            for (Future<?> future : futures) future.cancel(true);
+            if (virtualThreads != null) virtualThreads.shutdown();
+        }
+    }
+
+    private final Object[] inputs;
+    private final Unchecker.ThrowingFunction<In, Out> function;
+    /** outputs by input index if ordered, otherwise in completion order */
+    private final Object[] outputs;
+    private final boolean ordered;
+    /** number of outputs, assigning completion order slots if unordered */
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /** thread currently calling the function per worker, guarded by itself */
+    private final Thread[] running;
+    private final CountDownLatch workersDone;
+
+    private ParallelMap(Collection<In> inputs, Unchecker.ThrowingFunction<In, Out> function, int workers, boolean ordered) {
+        this.inputs = inputs.toArray();
+        this.function = Objects.requireNonNull(function);
+        this.outputs = new Object[this.inputs.length];
+        this.ordered = ordered;
+        this.running = new Thread[workers];
+        this.workersDone = new CountDownLatch(workers);
+    }
+
+    static <In, Out> List<Out> map(Collection<In> inputs,
+                                   Unchecker.ThrowingFunction<In, Out> function,
+                                   int maxConcurrency,
+                                   Executor executor,
+                                   boolean ordered,
+                                   Function<Throwable, ? extends RuntimeException> exTransformer) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(exTransformer);
+        final int workers = Math.min(maxConcurrency, inputs.size());
+        if (workers == 0) return new ArrayList<>();
+        return new ParallelMap<>(inputs, function, workers, ordered).run(executor, exTransformer);
+    }
+
+    private List<Out> run(Executor executor, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        for (int worker = 0; worker < running.length; ++worker) {
+            final int slot = worker;
+            try {
+                executor.execute(() -> work(slot));
+            }
+            catch (RejectedExecutionException e) {
+                fail(e);
+                for (int unstarted = worker; unstarted < running.length; ++unstarted) workersDone.countDown();
+                break;
+            }
+        }
+        final boolean interrupted = awaitWorkers();
+        if (interrupted) Thread.currentThread().interrupt();
+
+        final Throwable thrown = failure.get();
+        if (thrown != null) {
+            if (thrown instanceof RuntimeException) throw (RuntimeException) thrown;
+            if (thrown instanceof Error) throw (Error) thrown;
+            throw exTransformer.apply(thrown);
+        }
+        return results();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Out> results() {
+        return new ArrayList<>((List<Out>) Arrays.asList(outputs));
+    }
+
+    /** Waits for all workers, cancelling them if interrupted. @return whether the caller was interrupted */
+    private boolean awaitWorkers() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                        @Override
+                        public boolean block() throws InterruptedException {
+                            workersDone.await();
+                            return true;
+                        }
+
+                        @Override
+                        public boolean isReleasable() {
+                            return workersDone.getCount() == 0;
+                        }
+                    });
+                }
+                else workersDone.await();
+                return interrupted;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+                fail(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void work(int slot) {
+        try {
+            for (int index; failure.get() == null && (index = next.getAndIncrement()) < inputs.length; ) {
+                synchronized (running) {
+                    if (failure.get() != null) break;
+                    running[slot] = Thread.currentThread();
+                }
+                try {
+                    final Out out = apply((In) inputs[index]);
+                    final int position = completed.getAndIncrement();
+                    outputs[ordered ? index : position] = out;
+                }
+                catch (Throwable t) {
+                    fail(t);
+                }
+                finally {
+                    synchronized (running) {
+                        running[slot] = null;
+                    }
+                    // clear any cancellation interrupt, so it does not leak into the executor's next task
+                    if (failure.get() != null) Thread.interrupted();
+                }
+            }
+        }
+        finally {
+            workersDone.countDown();
+        }
+    }
+
+    private Out apply(In input) throws Throwable {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) return function.apply(input);
+
+        final BlockingCall<In, Out> call = new BlockingCall<>(function, input);
+        ForkJoinPool.managedBlock(call);
+        if (call.failure != null) throw call.failure;
+        return call.output;
+    }
+
+    /** Records the first failure, interrupting other in-flight calls */
+    private void fail(Throwable thrown) {
+        if (!failure.compareAndSet(null, thrown)) return;
+        synchronized (running) {
+            for (Thread thread : running) {
+                if (thread != null && thread != Thread.currentThread()) thread.interrupt();
+            }
+        }
+    }
+
+    /** Function call that lets a ForkJoinPool add a compensating thread while it blocks */
+    private static final class BlockingCall<In, Out> implements ForkJoinPool.ManagedBlocker {
+        private final Unchecker.ThrowingFunction<In, Out> function;
+        private final In input;
+        private boolean done;
+        Out output;
+        Throwable failure;
+
+        BlockingCall(Unchecker.ThrowingFunction<In, Out> function, In input) {
+            this.function = function;
+            this.input = input;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                output = function.apply(input);
+            }
+            catch (Throwable t) {
+                failure = t;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+}
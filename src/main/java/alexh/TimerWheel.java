@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel of nodes keyed by their nanosecond expiry time. Each level is a ring of buckets, each
+ * bucket a circular doubly linked list. Levels 0 to 3 span roughly 1.07s, 1.15m, 1.22h & 0.81d per bucket, with
+ * just enough buckets to cover expiries up to 1.15m, 1.22h, 0.81d & 13d ahead respectively, & a single bucket
+ * last level holds anything further out. Scheduling & descheduling are O(1). Advancing the wheel visits only
+ * the buckets whose time has passed, expiring due nodes & cascading the rest down to finer levels, so reaping
+ * is O(1) amortized per node rather than a scan. Nodes are reaped up to a level 0 bucket (~1.07s) late.
+ * Not thread-safe.
+ */
+final class TimerWheel {
+
+    /** time per bucket of each level, & the time beyond which the last level holds expiries */
+    private static final long[] SPANS = { 1L << 30, 1L << 36, 1L << 42, 1L << 46, 1L << 50, 1L << 50 };
+    /** buckets of each level, covering exactly up to the next level's span: 64, 64, 16, 16, 1 */
+    private static final int[] BUCKETS = new int[SPANS.length - 1];
+    private static final int[] SHIFTS = new int[BUCKETS.length];
+    static {
+        for (int i = 0; i < BUCKETS.length; ++i) {
+            BUCKETS[i] = (int) (SPANS[i + 1] / SPANS[i]);
+            SHIFTS[i] = Long.numberOfTrailingZeros(SPANS[i]);
+        }
+    }
+
+    /**
+     * Node of the wheel. Its expiry may move later while scheduled, the wheel reschedules nodes it finds unexpired,
+     * but must not move earlier unless rescheduled.
+     */
+    abstract static class Node {
+        private Node prev;
+        private Node next;
+
+        /** @return nanosecond time this node expires, comparable by difference with the wheel's time */
+        abstract long expiresAt();
+    }
+
+    private static final class Sentinel extends Node {
+        Sentinel() {
+            super.prev = this;
+            super.next = this;
+        }
+
+        @Override
+        long expiresAt() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final Node[][] wheel = new Node[BUCKETS.length][];
+    private long nanos;
+
+    /** @param nanos current time */
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        for (int i = 0; i < wheel.length; ++i) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; ++j) wheel[i][j] = new Sentinel();
+        }
+    }
+
+    /** @return time of the next level 0 tick, before which advancing would expire nothing */
+    long nextTick() {
+        return ((nanos >>> SHIFTS[0]) + 1) << SHIFTS[0];
+    }
+
+    void schedule(Node node) {
+        final Node sentinel = bucket(node.expiresAt());
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    /** Removes the node from the wheel if scheduled */
+    void deschedule(Node node) {
+        if (node.next == null) return;
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private Node bucket(long time) {
+        final long duration = time - nanos;
+        for (int i = 0; i < wheel.length - 1; ++i) {
+            if (duration < SPANS[i + 1]) {
+                final Node[] buckets = wheel[i];
+                return buckets[(int) (time >>> SHIFTS[i]) & (buckets.length - 1)];
+            }
+        }
+        return wheel[wheel.length - 1][0];
+    }
+
+    /**
+     * Advances the wheel to the current time, descheduling nodes that have expired
+     * @param nanos current time
+     * @param expired receives each expired node
+     */
+    void advance(long nanos, Consumer<Node> expired) {
+        final long previous = this.nanos;
+        if (nanos - previous <= 0) return;
+        this.nanos = nanos;
+        for (int i = 0; i < SHIFTS.length; ++i) {
+            final long previousTicks = previous >>> SHIFTS[i];
+            final long delta = (nanos >>> SHIFTS[i]) - previousTicks;
+            if (delta <= 0) break;
+            expire(i, previousTicks, delta, expired);
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, Consumer<Node> expired) {
+        final Node[] buckets = wheel[level];
+        final int mask = buckets.length - 1;
+        final int steps = (int) Math.min(1 + delta, buckets.length);
+        final int start = (int) previousTicks & mask;
+        for (int i = start; i < start + steps; ++i) {
+            final Node sentinel = buckets[i & mask];
+            Node node = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while (node != sentinel) {
+                final Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                if (node.expiresAt() - nanos <= 0) expired.accept(node);
+                else schedule(node);
+                node = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2015 Alex Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package alexh;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable hash array mapped trie node, backing {@link Fluent.PersistentMap}. Nodes use the compressed
+ * (CHAMP) layout: separate bitmaps of inline entries & sub-nodes, entries stored from the front of a single
+ * array & sub-nodes from the back. Sub-nodes always hold at least 2 entries, a sub-node reduced to a single
+ * entry is inlined into its parent, keeping the trie canonical.
+ */
+abstract class TrieNode {
+
+    /** find result of absent keys, distinct from a null value */
+    static final Object ABSENT = new Object();
+    static final TrieNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+    private static final int BITS = 5;
+    private static final int MAX_SHIFT = 30;
+    /** bitmap levels for shifts 0..30 then a collision level */
+    private static final int MAX_DEPTH = MAX_SHIFT / BITS + 2;
+
+    /** Put operation outcome */
+    static final class Change {
+        boolean added;
+    }
+
+    /** @return value mapped to key, or {@link #ABSENT} */
+    abstract Object find(Object key, int hash, int shift);
+
+    /** @return node including the mapping, or this node if unchanged */
+    abstract TrieNode put(Object key, Object value, int hash, int shift, Change change);
+
+    /** @return node excluding the key, or this node if key is absent */
+    abstract TrieNode remove(Object key, int hash, int shift);
+
+    abstract int dataArity();
+
+    abstract Object keyAt(int index);
+
+    abstract Object valueAt(int index);
+
+    abstract int nodeArity();
+
+    abstract TrieNode nodeAt(int index);
+
+    final boolean isSingleEntry() {
+        return dataArity() == 1 && nodeArity() == 0;
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /** @return new sub-node holding both entries */
+    private static TrieNode merge(Object key1, Object value1, int hash1, Object key2, Object value2, int hash2, int shift) {
+        if (shift > MAX_SHIFT) return new CollisionNode(new Object[]{ key1, value1, key2, value2 });
+
+        final int bit1 = bitpos(hash1, shift);
+        final int bit2 = bitpos(hash2, shift);
+        if (bit1 == bit2) {
+            return new BitmapNode(0, bit1, new Object[]{ merge(key1, value1, hash1, key2, value2, hash2, shift + BITS) });
+        }
+        return Integer.compareUnsigned(bit1, bit2) < 0
+            ? new BitmapNode(bit1 | bit2, 0, new Object[]{ key1, value1, key2, value2 })
+            : new BitmapNode(bit1 | bit2, 0, new Object[]{ key2, value2, key1, value1 });
+    }
+
+    static final class BitmapNode extends TrieNode {
+        private final int dataMap;
+        private final int nodeMap;
+        /** key, value pairs in bit order, followed by sub-nodes in reverse bit order */
+        private final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int i = index(dataMap, bit);
+                return Objects.equals(key, content[2 * i]) ? content[2 * i + 1] : ABSENT;
+            }
+            if ((nodeMap & bit) != 0) return nodeAt(index(nodeMap, bit)).find(key, hash, shift + BITS);
+            return ABSENT;
+        }
+
+        @Override
+        TrieNode put(Object key, Object value, int hash, int shift, Change change) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int i = index(dataMap, bit);
+                final Object existingKey = content[2 * i];
+                if (Objects.equals(key, existingKey)) {
+                    if (content[2 * i + 1] == value) return this;
+                    final Object[] updated = content.clone();
+                    updated[2 * i + 1] = value;
+                    return new BitmapNode(dataMap, nodeMap, updated);
+                }
+                change.added = true;
+                final TrieNode sub = merge(existingKey, content[2 * i + 1], ImmutableMaps.spread(existingKey),
+                    key, value, hash, shift + BITS);
+                return dataToNode(bit, i, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                final int j = index(nodeMap, bit);
+                final TrieNode sub = nodeAt(j);
+                final TrieNode newSub = sub.put(key, value, hash, shift + BITS, change);
+                if (newSub == sub) return this;
+                final Object[] updated = content.clone();
+                updated[content.length - 1 - j] = newSub;
+                return new BitmapNode(dataMap, nodeMap, updated);
+            }
+            change.added = true;
+            final int i = index(dataMap, bit);
+            final Object[] inserted = new Object[content.length + 2];
+            System.arraycopy(content, 0, inserted, 0, 2 * i);
+            inserted[2 * i] = key;
+            inserted[2 * i + 1] = value;
+            System.arraycopy(content, 2 * i, inserted, 2 * i + 2, content.length - 2 * i);
+            return new BitmapNode(dataMap | bit, nodeMap, inserted);
+        }
+
+        @Override
+        TrieNode remove(Object key, int hash, int shift) {
+            final int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                final int i = index(dataMap, bit);
+                if (!Objects.equals(key, content[2 * i])) return this;
+                if (content.length == 2) return EMPTY;
+                final Object[] removed = new Object[content.length - 2];
+                System.arraycopy(content, 0, removed, 0, 2 * i);
+                System.arraycopy(content, 2 * i + 2, removed, 2 * i, content.length - 2 * i - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap, removed);
+            }
+            if ((nodeMap & bit) != 0) {
+                final int j = index(nodeMap, bit);
+                final TrieNode sub = nodeAt(j);
+                final TrieNode newSub = sub.remove(key, hash, shift + BITS);
+                if (newSub == sub) return this;
+                if (newSub.isSingleEntry()) return nodeToData(bit, j, newSub.keyAt(0), newSub.valueAt(0));
+                final Object[] updated = content.clone();
+                updated[content.length - 1 - j] = newSub;
+                return new BitmapNode(dataMap, nodeMap, updated);
+            }
+            return this;
+        }
+
+        /** @return copy with data entry i, at bit, replaced by the sub-node */
+        private TrieNode dataToNode(int bit, int i, TrieNode sub) {
+            final int newNodeMap = nodeMap | bit;
+            final int j = index(newNodeMap, bit);
+            final int dataLength = 2 * Integer.bitCount(dataMap);
+            final int nodeCount = Integer.bitCount(nodeMap);
+            final Object[] migrated = new Object[content.length - 1];
+
+            System.arraycopy(content, 0, migrated, 0, 2 * i);
+            System.arraycopy(content, 2 * i + 2, migrated, 2 * i, dataLength - 2 * i - 2);
+            for (int k = 0; k <= nodeCount; ++k) {
+                migrated[migrated.length - 1 - k] = k < j ? nodeAt(k) : k == j ? sub : nodeAt(k - 1);
+            }
+            return new BitmapNode(dataMap ^ bit, newNodeMap, migrated);
+        }
+
+        /** @return copy with sub-node j, at bit, replaced by a data entry */
+        private TrieNode nodeToData(int bit, int j, Object key, Object value) {
+            final int newDataMap = dataMap | bit;
+            final int i = index(newDataMap, bit);
+            final int dataLength = 2 * Integer.bitCount(dataMap);
+            final int nodeCount = Integer.bitCount(nodeMap);
+            final Object[] migrated = new Object[content.length + 1];
+
+            System.arraycopy(content, 0, migrated, 0, 2 * i);
+            migrated[2 * i] = key;
+            migrated[2 * i + 1] = value;
+            System.arraycopy(content, 2 * i, migrated, 2 * i + 2, dataLength - 2 * i);
+            for (int k = 0, n = 0; k < nodeCount; ++k) {
+                if (k != j) migrated[migrated.length - 1 - n++] = nodeAt(k);
+            }
+            return new BitmapNode(newDataMap, nodeMap ^ bit, migrated);
+        }
+
+        @Override
+        int dataArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        TrieNode nodeAt(int index) {
+            return (TrieNode) content[content.length - 1 - index];
+        }
+    }
+
+    /** Entries with fully equal hashes, searched linearly */
+    static final class CollisionNode extends TrieNode {
+        private final Object[] kvs;
+
+        CollisionNode(Object[] kvs) {
+            this.kvs = kvs;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < kvs.length; i += 2) {
+                if (Objects.equals(key, kvs[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            final int i = indexOf(key);
+            return i < 0 ? ABSENT : kvs[i + 1];
+        }
+
+        @Override
+        TrieNode put(Object key, Object value, int hash, int shift, Change change) {
+            final int i = indexOf(key);
+            if (i >= 0) {
+                if (kvs[i + 1] == value) return this;
+                final Object[] updated = kvs.clone();
+                updated[i + 1] = value;
+                return new CollisionNode(updated);
+            }
+            change.added = true;
+            final Object[] appended = new Object[kvs.length + 2];
+            System.arraycopy(kvs, 0, appended, 0, kvs.length);
+            appended[kvs.length] = key;
+            appended[kvs.length + 1] = value;
+            return new CollisionNode(appended);
+        }
+
+        @Override
+        TrieNode remove(Object key, int hash, int shift) {
+            final int i = indexOf(key);
+            if (i < 0) return this;
+            final Object[] removed = new Object[kvs.length - 2];
+            System.arraycopy(kvs, 0, removed, 0, i);
+            System.arraycopy(kvs, i + 2, removed, i, kvs.length - i - 2);
+            return new CollisionNode(removed);
+        }
+
+        @Override
+        int dataArity() {
+            return kvs.length >> 1;
+        }
+
+        @Override
+        Object keyAt(int index) {
+            return kvs[2 * index];
+        }
+
+        @Override
+        Object valueAt(int index) {
+            return kvs[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        TrieNode nodeAt(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /** Depth first iterator of trie entries */
+    static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final TrieNode[] nodes = new TrieNode[MAX_DEPTH];
+        private final int[] dataCursors = new int[MAX_DEPTH];
+        private final int[] nodeCursors = new int[MAX_DEPTH];
+        private int depth;
+
+        EntryIterator(TrieNode root) {
+            nodes[0] = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (depth >= 0) {
+                final TrieNode node = nodes[depth];
+                if (dataCursors[depth] < node.dataArity()) return true;
+                if (nodeCursors[depth] < node.nodeArity()) {
+                    final TrieNode child = node.nodeAt(nodeCursors[depth]++);
+                    nodes[++depth] = child;
+                    dataCursors[depth] = 0;
+                    nodeCursors[depth] = 0;
+                }
+                else nodes[depth--] = null;
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final TrieNode node = nodes[depth];
+            final int i = dataCursors[depth]++;
+            return new AbstractMap.SimpleImmutableEntry<>((K) node.keyAt(i), (V) node.valueAt(i));
+        }
+    }
+}
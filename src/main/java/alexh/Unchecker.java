@@ -15,7 +15,27 @@
  */
 package alexh;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.*;
+import java.util.stream.Stream;
 
 /**
  * Utility methods to handle unwanted checked exceptions, avoiding try-catch blocks that simply wrap checked
@@ -23,7 +43,32 @@ import java.util.function.*;
  */
 public class Unchecker {
 
-    private static final Function<Throwable, ? extends RuntimeException> DEFAULT_EXCEPTION_TRANSFORMER = RuntimeException::new;
+    /**
+     * Wraps checked exceptions in {@link UncheckedException}s, which do not capture a stack trace so cost about as
+     * much as a plain allocation. Suited to checked exceptions used for expected control flow, eg parse failures.
+     */
+    public static final Function<Throwable, UncheckedException> STACKLESS_EXCEPTION_TRANSFORMER = UncheckedException::new;
+
+    private static volatile Function<Throwable, ? extends RuntimeException> defaultExceptionTransformer = RuntimeException::new;
+
+    /** Reads the default transformer when an exception is thrown, so setting it affects existing wrappers too */
+    private static final Function<Throwable, ? extends RuntimeException> DEFAULT_EXCEPTION_TRANSFORMER =
+        t -> defaultExceptionTransformer.apply(t);
+
+    /**
+     * Sets the checked -> unchecked exception transformer used by the methods that do not take one, initially
+     * RuntimeException::new. For example {@link #STACKLESS_EXCEPTION_TRANSFORMER}. Takes effect for subsequent
+     * exceptions, including those thrown by functions unchecked before this call.
+     * @param exTransformer checked -> unchecked exception transformer
+     */
+    public static void setDefaultExceptionTransformer(Function<Throwable, ? extends RuntimeException> exTransformer) {
+        defaultExceptionTransformer = Objects.requireNonNull(exTransformer);
+    }
+
+    /** @return checked -> unchecked exception transformer used by the methods that do not take one */
+    public static Function<Throwable, ? extends RuntimeException> getDefaultExceptionTransformer() {
+        return defaultExceptionTransformer;
+    }
 
     /**
      * Converts Checked throwing supplier -> standard supplier, any checked exceptions are wrapped using the input
@@ -48,7 +93,9 @@ public class Unchecker {
      * @return Supplier result
      */
     public static <T> T uncheckedGet(ThrowingSupplier<T> supplier, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        return uncheck(supplier, exTransformer).get();
+        try { return supplier.get(); }
+        catch (RuntimeException | Error e) { throw e; }
+        catch (Throwable t) { throw exTransformer.apply(t); }
     }
 
     /**
@@ -57,7 +104,9 @@ public class Unchecker {
      * @param exTransformer checked -> unchecked exception transformer
      */
     public static void unchecked(ThrowingRunnable runnable, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        uncheck(runnable, exTransformer).run();
+        try { runnable.run(); }
+        catch (RuntimeException | Error e) { throw e; }
+        catch (Throwable t) { throw exTransformer.apply(t); }
     }
 
     /**
@@ -68,12 +117,20 @@ public class Unchecker {
      * @return function that will not throw checked exceptions
      */
     public static <In, Out> Function<In, Out> uncheck(ThrowingFunction<In, Out> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        return (In in) -> uncheckedGet(() -> function.apply(in), exTransformer);
+        return (In in) -> {
+            try { return function.apply(in); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
     }
 
     /** As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingFunction, java.util.function.Function)} for BiFunctions */
     public static <In1, In2, Out> BiFunction<In1, In2, Out> uncheck(ThrowingBiFunction<In1, In2, Out> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        return (In1 in1, In2 in2) -> uncheckedGet(() -> function.apply(in1, in2), exTransformer);
+        return (In1 in1, In2 in2) -> {
+            try { return function.apply(in1, in2); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
     }
 
     /**
@@ -84,10 +141,11 @@ public class Unchecker {
      * @return runnable that will not throw checked exceptions
      */
     public static Runnable uncheck(ThrowingRunnable runnable, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        return () -> uncheckedGet(() -> {
-            runnable.run();
-            return null;
-        }, exTransformer);
+        return () -> {
+            try { runnable.run(); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
     }
 
     /**
@@ -98,17 +156,25 @@ public class Unchecker {
      * @return consumer that will not throw checked exceptions
      */
     public static <T> Consumer<T> uncheck(ThrowingConsumer<T> consumer, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        return (T t) -> unchecked(() -> consumer.accept(t), exTransformer);
+        return (T t) -> {
+            try { consumer.accept(t); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
     }
 
     /** As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingConsumer, java.util.function.Function)} for BiConsumers */
     public static <T, U> BiConsumer<T, U> uncheck(ThrowingBiConsumer<T, U> consumer, Function<Throwable, ? extends RuntimeException> exTransformer) {
-        return (T t, U u) -> unchecked(() -> consumer.accept(t, u), exTransformer);
+        return (T t, U u) -> {
+            try { consumer.accept(t, u); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
     }
 
     /**
      * As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingSupplier, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static <T> Supplier<T> uncheck(ThrowingSupplier<T> supplier) {
         return uncheck(supplier, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -116,7 +182,7 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#uncheckedGet(alexh.Unchecker.ThrowingSupplier, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static <T> T uncheckedGet(ThrowingSupplier<T> supplier) {
         return uncheckedGet(supplier, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -124,7 +190,7 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#unchecked(alexh.Unchecker.ThrowingRunnable, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static void unchecked(ThrowingRunnable runnable) {
         unchecked(runnable, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -132,7 +198,7 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingFunction, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static <In, Out> Function<In, Out> uncheck(ThrowingFunction<In, Out> function) {
         return uncheck(function, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -140,7 +206,7 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingBiFunction, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static <In1, In2, Out> BiFunction<In1, In2, Out> uncheck(ThrowingBiFunction<In1, In2, Out> function) {
         return uncheck(function, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -148,7 +214,7 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingRunnable, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static Runnable uncheck(ThrowingRunnable runnable) {
         return uncheck(runnable, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -156,7 +222,7 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingConsumer, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static <T> Consumer<T> uncheck(ThrowingConsumer<T> consumer) {
         return uncheck(consumer, DEFAULT_EXCEPTION_TRANSFORMER);
@@ -164,63 +230,2125 @@ public class Unchecker {
 
     /**
      * As {@link Unchecker#uncheck(alexh.Unchecker.ThrowingBiConsumer, java.util.function.Function)}
-     * wrapping checked exceptions in {@link RuntimeException}s
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
     public static <T, U> BiConsumer<T, U> uncheck(ThrowingBiConsumer<T, U> consumer) {
         return uncheck(consumer, DEFAULT_EXCEPTION_TRANSFORMER);
     }
 
     /**
-     * Represents a supplier of results, that could throw a checked exception
-     * @see java.util.function.Supplier
+     * Converts Checked throwing IntFunction -> standard IntFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntFunction that will not throw checked exceptions
      */
-    @FunctionalInterface
-    public interface ThrowingSupplier<T> {
-        T get() throws Throwable;
+    public static <R> IntFunction<R> uncheckIntFunction(ThrowingIntFunction<R> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int value) -> {
+            try { return function.apply(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
     }
 
     /**
-     * Operation that returns no result, but could throw a checked exception
-     * @see java.lang.Runnable
+     * As {@link Unchecker#uncheckIntFunction(alexh.Unchecker.ThrowingIntFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
-    @FunctionalInterface
-    public interface ThrowingRunnable {
-        void run() throws Throwable;
+    public static <R> IntFunction<R> uncheckIntFunction(ThrowingIntFunction<R> function) {
+        return uncheckIntFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
     }
 
     /**
-     * Function that accepts a single argument and produces a result, but could throw a checked exception
-     * @see java.util.function.Function
+     * Converts Checked throwing IntSupplier -> standard IntSupplier, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntSupplier that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntSupplier that will not throw checked exceptions
      */
-    @FunctionalInterface
-    public interface ThrowingFunction<In, Out> {
-        Out apply(In in) throws Throwable;
+    public static IntSupplier uncheckIntSupplier(ThrowingIntSupplier function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return () -> {
+            try { return function.getAsInt(); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
     }
 
     /**
-     * Function that accepts two arguments and produces a result, but could throw a checked exception
-     * @see java.util.function.BiFunction
+     * As {@link Unchecker#uncheckIntSupplier(alexh.Unchecker.ThrowingIntSupplier, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
-    @FunctionalInterface
-    public interface ThrowingBiFunction<In1, In2, Out> {
-        Out apply(In1 in1, In2 in2) throws Throwable;
+    public static IntSupplier uncheckIntSupplier(ThrowingIntSupplier function) {
+        return uncheckIntSupplier(function, DEFAULT_EXCEPTION_TRANSFORMER);
     }
 
     /**
-     * Operation that accepts a single input argument and returns no result, but could throw a checked exception
-     * @see java.util.function.Consumer
+     * Converts Checked throwing IntPredicate -> standard IntPredicate, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntPredicate that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntPredicate that will not throw checked exceptions
      */
-    @FunctionalInterface
-    public interface ThrowingConsumer<T> {
-        void accept(T t) throws Throwable;
+    public static IntPredicate uncheckIntPredicate(ThrowingIntPredicate function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int value) -> {
+            try { return function.test(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
     }
 
     /**
-     * Operation that accepts two arguments and returns no result, but could throw a checked exception
-     * @see java.util.function.BiConsumer
+     * As {@link Unchecker#uncheckIntPredicate(alexh.Unchecker.ThrowingIntPredicate, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
      */
-    @FunctionalInterface
-    public interface ThrowingBiConsumer<T, U> {
-        void accept(T t, U u) throws Throwable;
+    public static IntPredicate uncheckIntPredicate(ThrowingIntPredicate function) {
+        return uncheckIntPredicate(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing IntConsumer -> standard IntConsumer, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntConsumer that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntConsumer that will not throw checked exceptions
+     */
+    public static IntConsumer uncheckIntConsumer(ThrowingIntConsumer function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int value) -> {
+            try { function.accept(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckIntConsumer(alexh.Unchecker.ThrowingIntConsumer, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static IntConsumer uncheckIntConsumer(ThrowingIntConsumer function) {
+        return uncheckIntConsumer(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing IntUnaryOperator -> standard IntUnaryOperator, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntUnaryOperator that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntUnaryOperator that will not throw checked exceptions
+     */
+    public static IntUnaryOperator uncheckIntUnaryOperator(ThrowingIntUnaryOperator function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int operand) -> {
+            try { return function.applyAsInt(operand); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckIntUnaryOperator(alexh.Unchecker.ThrowingIntUnaryOperator, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static IntUnaryOperator uncheckIntUnaryOperator(ThrowingIntUnaryOperator function) {
+        return uncheckIntUnaryOperator(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing IntBinaryOperator -> standard IntBinaryOperator, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntBinaryOperator that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntBinaryOperator that will not throw checked exceptions
+     */
+    public static IntBinaryOperator uncheckIntBinaryOperator(ThrowingIntBinaryOperator function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int left, int right) -> {
+            try { return function.applyAsInt(left, right); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckIntBinaryOperator(alexh.Unchecker.ThrowingIntBinaryOperator, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static IntBinaryOperator uncheckIntBinaryOperator(ThrowingIntBinaryOperator function) {
+        return uncheckIntBinaryOperator(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing IntToLongFunction -> standard IntToLongFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntToLongFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntToLongFunction that will not throw checked exceptions
+     */
+    public static IntToLongFunction uncheckIntToLongFunction(ThrowingIntToLongFunction function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int value) -> {
+            try { return function.applyAsLong(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckIntToLongFunction(alexh.Unchecker.ThrowingIntToLongFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static IntToLongFunction uncheckIntToLongFunction(ThrowingIntToLongFunction function) {
+        return uncheckIntToLongFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing IntToDoubleFunction -> standard IntToDoubleFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function IntToDoubleFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return IntToDoubleFunction that will not throw checked exceptions
+     */
+    public static IntToDoubleFunction uncheckIntToDoubleFunction(ThrowingIntToDoubleFunction function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (int value) -> {
+            try { return function.applyAsDouble(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckIntToDoubleFunction(alexh.Unchecker.ThrowingIntToDoubleFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static IntToDoubleFunction uncheckIntToDoubleFunction(ThrowingIntToDoubleFunction function) {
+        return uncheckIntToDoubleFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ToIntFunction -> standard ToIntFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ToIntFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ToIntFunction that will not throw checked exceptions
+     */
+    public static <T> ToIntFunction<T> uncheckToIntFunction(ThrowingToIntFunction<T> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T value) -> {
+            try { return function.applyAsInt(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckToIntFunction(alexh.Unchecker.ThrowingToIntFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> ToIntFunction<T> uncheckToIntFunction(ThrowingToIntFunction<T> function) {
+        return uncheckToIntFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ToIntBiFunction -> standard ToIntBiFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ToIntBiFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ToIntBiFunction that will not throw checked exceptions
+     */
+    public static <T, U> ToIntBiFunction<T, U> uncheckToIntBiFunction(ThrowingToIntBiFunction<T, U> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T t, U u) -> {
+            try { return function.applyAsInt(t, u); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckToIntBiFunction(alexh.Unchecker.ThrowingToIntBiFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T, U> ToIntBiFunction<T, U> uncheckToIntBiFunction(ThrowingToIntBiFunction<T, U> function) {
+        return uncheckToIntBiFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ObjIntConsumer -> standard ObjIntConsumer, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ObjIntConsumer that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ObjIntConsumer that will not throw checked exceptions
+     */
+    public static <T> ObjIntConsumer<T> uncheckObjIntConsumer(ThrowingObjIntConsumer<T> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T t, int value) -> {
+            try { function.accept(t, value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckObjIntConsumer(alexh.Unchecker.ThrowingObjIntConsumer, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> ObjIntConsumer<T> uncheckObjIntConsumer(ThrowingObjIntConsumer<T> function) {
+        return uncheckObjIntConsumer(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongFunction -> standard LongFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongFunction that will not throw checked exceptions
+     */
+    public static <R> LongFunction<R> uncheckLongFunction(ThrowingLongFunction<R> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long value) -> {
+            try { return function.apply(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongFunction(alexh.Unchecker.ThrowingLongFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <R> LongFunction<R> uncheckLongFunction(ThrowingLongFunction<R> function) {
+        return uncheckLongFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongSupplier -> standard LongSupplier, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongSupplier that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongSupplier that will not throw checked exceptions
+     */
+    public static LongSupplier uncheckLongSupplier(ThrowingLongSupplier function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return () -> {
+            try { return function.getAsLong(); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongSupplier(alexh.Unchecker.ThrowingLongSupplier, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongSupplier uncheckLongSupplier(ThrowingLongSupplier function) {
+        return uncheckLongSupplier(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongPredicate -> standard LongPredicate, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongPredicate that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongPredicate that will not throw checked exceptions
+     */
+    public static LongPredicate uncheckLongPredicate(ThrowingLongPredicate function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long value) -> {
+            try { return function.test(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongPredicate(alexh.Unchecker.ThrowingLongPredicate, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongPredicate uncheckLongPredicate(ThrowingLongPredicate function) {
+        return uncheckLongPredicate(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongConsumer -> standard LongConsumer, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongConsumer that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongConsumer that will not throw checked exceptions
+     */
+    public static LongConsumer uncheckLongConsumer(ThrowingLongConsumer function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long value) -> {
+            try { function.accept(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongConsumer(alexh.Unchecker.ThrowingLongConsumer, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongConsumer uncheckLongConsumer(ThrowingLongConsumer function) {
+        return uncheckLongConsumer(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongUnaryOperator -> standard LongUnaryOperator, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongUnaryOperator that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongUnaryOperator that will not throw checked exceptions
+     */
+    public static LongUnaryOperator uncheckLongUnaryOperator(ThrowingLongUnaryOperator function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long operand) -> {
+            try { return function.applyAsLong(operand); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongUnaryOperator(alexh.Unchecker.ThrowingLongUnaryOperator, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongUnaryOperator uncheckLongUnaryOperator(ThrowingLongUnaryOperator function) {
+        return uncheckLongUnaryOperator(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongBinaryOperator -> standard LongBinaryOperator, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongBinaryOperator that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongBinaryOperator that will not throw checked exceptions
+     */
+    public static LongBinaryOperator uncheckLongBinaryOperator(ThrowingLongBinaryOperator function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long left, long right) -> {
+            try { return function.applyAsLong(left, right); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongBinaryOperator(alexh.Unchecker.ThrowingLongBinaryOperator, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongBinaryOperator uncheckLongBinaryOperator(ThrowingLongBinaryOperator function) {
+        return uncheckLongBinaryOperator(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongToIntFunction -> standard LongToIntFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongToIntFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongToIntFunction that will not throw checked exceptions
+     */
+    public static LongToIntFunction uncheckLongToIntFunction(ThrowingLongToIntFunction function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long value) -> {
+            try { return function.applyAsInt(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongToIntFunction(alexh.Unchecker.ThrowingLongToIntFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongToIntFunction uncheckLongToIntFunction(ThrowingLongToIntFunction function) {
+        return uncheckLongToIntFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing LongToDoubleFunction -> standard LongToDoubleFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function LongToDoubleFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return LongToDoubleFunction that will not throw checked exceptions
+     */
+    public static LongToDoubleFunction uncheckLongToDoubleFunction(ThrowingLongToDoubleFunction function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (long value) -> {
+            try { return function.applyAsDouble(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckLongToDoubleFunction(alexh.Unchecker.ThrowingLongToDoubleFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static LongToDoubleFunction uncheckLongToDoubleFunction(ThrowingLongToDoubleFunction function) {
+        return uncheckLongToDoubleFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ToLongFunction -> standard ToLongFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ToLongFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ToLongFunction that will not throw checked exceptions
+     */
+    public static <T> ToLongFunction<T> uncheckToLongFunction(ThrowingToLongFunction<T> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T value) -> {
+            try { return function.applyAsLong(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckToLongFunction(alexh.Unchecker.ThrowingToLongFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> ToLongFunction<T> uncheckToLongFunction(ThrowingToLongFunction<T> function) {
+        return uncheckToLongFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ToLongBiFunction -> standard ToLongBiFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ToLongBiFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ToLongBiFunction that will not throw checked exceptions
+     */
+    public static <T, U> ToLongBiFunction<T, U> uncheckToLongBiFunction(ThrowingToLongBiFunction<T, U> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T t, U u) -> {
+            try { return function.applyAsLong(t, u); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckToLongBiFunction(alexh.Unchecker.ThrowingToLongBiFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T, U> ToLongBiFunction<T, U> uncheckToLongBiFunction(ThrowingToLongBiFunction<T, U> function) {
+        return uncheckToLongBiFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ObjLongConsumer -> standard ObjLongConsumer, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ObjLongConsumer that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ObjLongConsumer that will not throw checked exceptions
+     */
+    public static <T> ObjLongConsumer<T> uncheckObjLongConsumer(ThrowingObjLongConsumer<T> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T t, long value) -> {
+            try { function.accept(t, value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckObjLongConsumer(alexh.Unchecker.ThrowingObjLongConsumer, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> ObjLongConsumer<T> uncheckObjLongConsumer(ThrowingObjLongConsumer<T> function) {
+        return uncheckObjLongConsumer(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleFunction -> standard DoubleFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleFunction that will not throw checked exceptions
+     */
+    public static <R> DoubleFunction<R> uncheckDoubleFunction(ThrowingDoubleFunction<R> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double value) -> {
+            try { return function.apply(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleFunction(alexh.Unchecker.ThrowingDoubleFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <R> DoubleFunction<R> uncheckDoubleFunction(ThrowingDoubleFunction<R> function) {
+        return uncheckDoubleFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleSupplier -> standard DoubleSupplier, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleSupplier that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleSupplier that will not throw checked exceptions
+     */
+    public static DoubleSupplier uncheckDoubleSupplier(ThrowingDoubleSupplier function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return () -> {
+            try { return function.getAsDouble(); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleSupplier(alexh.Unchecker.ThrowingDoubleSupplier, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoubleSupplier uncheckDoubleSupplier(ThrowingDoubleSupplier function) {
+        return uncheckDoubleSupplier(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoublePredicate -> standard DoublePredicate, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoublePredicate that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoublePredicate that will not throw checked exceptions
+     */
+    public static DoublePredicate uncheckDoublePredicate(ThrowingDoublePredicate function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double value) -> {
+            try { return function.test(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoublePredicate(alexh.Unchecker.ThrowingDoublePredicate, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoublePredicate uncheckDoublePredicate(ThrowingDoublePredicate function) {
+        return uncheckDoublePredicate(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleConsumer -> standard DoubleConsumer, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleConsumer that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleConsumer that will not throw checked exceptions
+     */
+    public static DoubleConsumer uncheckDoubleConsumer(ThrowingDoubleConsumer function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double value) -> {
+            try { function.accept(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleConsumer(alexh.Unchecker.ThrowingDoubleConsumer, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoubleConsumer uncheckDoubleConsumer(ThrowingDoubleConsumer function) {
+        return uncheckDoubleConsumer(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleUnaryOperator -> standard DoubleUnaryOperator, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleUnaryOperator that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleUnaryOperator that will not throw checked exceptions
+     */
+    public static DoubleUnaryOperator uncheckDoubleUnaryOperator(ThrowingDoubleUnaryOperator function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double operand) -> {
+            try { return function.applyAsDouble(operand); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleUnaryOperator(alexh.Unchecker.ThrowingDoubleUnaryOperator, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoubleUnaryOperator uncheckDoubleUnaryOperator(ThrowingDoubleUnaryOperator function) {
+        return uncheckDoubleUnaryOperator(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleBinaryOperator -> standard DoubleBinaryOperator, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleBinaryOperator that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleBinaryOperator that will not throw checked exceptions
+     */
+    public static DoubleBinaryOperator uncheckDoubleBinaryOperator(ThrowingDoubleBinaryOperator function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double left, double right) -> {
+            try { return function.applyAsDouble(left, right); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleBinaryOperator(alexh.Unchecker.ThrowingDoubleBinaryOperator, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoubleBinaryOperator uncheckDoubleBinaryOperator(ThrowingDoubleBinaryOperator function) {
+        return uncheckDoubleBinaryOperator(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleToIntFunction -> standard DoubleToIntFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleToIntFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleToIntFunction that will not throw checked exceptions
+     */
+    public static DoubleToIntFunction uncheckDoubleToIntFunction(ThrowingDoubleToIntFunction function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double value) -> {
+            try { return function.applyAsInt(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleToIntFunction(alexh.Unchecker.ThrowingDoubleToIntFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoubleToIntFunction uncheckDoubleToIntFunction(ThrowingDoubleToIntFunction function) {
+        return uncheckDoubleToIntFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing DoubleToLongFunction -> standard DoubleToLongFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function DoubleToLongFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return DoubleToLongFunction that will not throw checked exceptions
+     */
+    public static DoubleToLongFunction uncheckDoubleToLongFunction(ThrowingDoubleToLongFunction function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (double value) -> {
+            try { return function.applyAsLong(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckDoubleToLongFunction(alexh.Unchecker.ThrowingDoubleToLongFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static DoubleToLongFunction uncheckDoubleToLongFunction(ThrowingDoubleToLongFunction function) {
+        return uncheckDoubleToLongFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ToDoubleFunction -> standard ToDoubleFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ToDoubleFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ToDoubleFunction that will not throw checked exceptions
+     */
+    public static <T> ToDoubleFunction<T> uncheckToDoubleFunction(ThrowingToDoubleFunction<T> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T value) -> {
+            try { return function.applyAsDouble(value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckToDoubleFunction(alexh.Unchecker.ThrowingToDoubleFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> ToDoubleFunction<T> uncheckToDoubleFunction(ThrowingToDoubleFunction<T> function) {
+        return uncheckToDoubleFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ToDoubleBiFunction -> standard ToDoubleBiFunction, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ToDoubleBiFunction that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ToDoubleBiFunction that will not throw checked exceptions
+     */
+    public static <T, U> ToDoubleBiFunction<T, U> uncheckToDoubleBiFunction(ThrowingToDoubleBiFunction<T, U> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T t, U u) -> {
+            try { return function.applyAsDouble(t, u); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckToDoubleBiFunction(alexh.Unchecker.ThrowingToDoubleBiFunction, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T, U> ToDoubleBiFunction<T, U> uncheckToDoubleBiFunction(ThrowingToDoubleBiFunction<T, U> function) {
+        return uncheckToDoubleBiFunction(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing ObjDoubleConsumer -> standard ObjDoubleConsumer, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function ObjDoubleConsumer that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return ObjDoubleConsumer that will not throw checked exceptions
+     */
+    public static <T> ObjDoubleConsumer<T> uncheckObjDoubleConsumer(ThrowingObjDoubleConsumer<T> function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return (T t, double value) -> {
+            try { function.accept(t, value); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable ex) { throw exTransformer.apply(ex); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckObjDoubleConsumer(alexh.Unchecker.ThrowingObjDoubleConsumer, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> ObjDoubleConsumer<T> uncheckObjDoubleConsumer(ThrowingObjDoubleConsumer<T> function) {
+        return uncheckObjDoubleConsumer(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Converts Checked throwing BooleanSupplier -> standard BooleanSupplier, any checked exceptions are wrapped using
+     * the input exception transformer
+     * @param function BooleanSupplier that can throw a checked exception
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return BooleanSupplier that will not throw checked exceptions
+     */
+    public static BooleanSupplier uncheckBooleanSupplier(ThrowingBooleanSupplier function, Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return () -> {
+            try { return function.getAsBoolean(); }
+            catch (RuntimeException | Error e) { throw e; }
+            catch (Throwable t) { throw exTransformer.apply(t); }
+        };
+    }
+
+    /**
+     * As {@link Unchecker#uncheckBooleanSupplier(alexh.Unchecker.ThrowingBooleanSupplier, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static BooleanSupplier uncheckBooleanSupplier(ThrowingBooleanSupplier function) {
+        return uncheckBooleanSupplier(function, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Throws the input throwable unchanged, even if checked, without declaring it. Java only checks exceptions at
+     * compile time, so the generic throws clause erases the check. Callers higher up the stack can catch the
+     * original checked exception.
+     * <pre>{@code
+     *  catch (IOException e) { throw Unchecker.sneakyThrow(e); }
+     * }</pre>
+     * @param throwable throwable to throw
+     * @return never returns, declared as returning so callers can {@code throw} the call to satisfy the compiler
+     */
+    public static RuntimeException sneakyThrow(Throwable throwable) {
+        throw Unchecker.<RuntimeException>erasedThrow(throwable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E erasedThrow(Throwable throwable) throws E {
+        throw (E) throwable;
+    }
+
+    /**
+     * Converts Checked throwing supplier -> standard supplier, any checked exceptions are rethrown unchanged without
+     * being declared, see {@link #sneakyThrow(Throwable)}
+     * @param supplier supplier that can throw a checked exception
+     * @return supplier that does not declare checked exceptions
+     */
+    public static <T> Supplier<T> sneaky(ThrowingSupplier<T> supplier) {
+        return () -> {
+            try { return supplier.get(); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /**
+     * Gets the supplier result rethrowing any checked exceptions unchanged without being declared
+     * @param supplier supplier that can throw a checked exception
+     * @param <T> Supplier / return type
+     * @return Supplier result
+     */
+    public static <T> T sneakyGet(ThrowingSupplier<T> supplier) {
+        try { return supplier.get(); }
+        catch (Throwable t) { throw sneakyThrow(t); }
+    }
+
+    /**
+     * Runs rethrowing any checked exceptions unchanged without being declared
+     * @param runnable runnable that can throw a checked exception
+     */
+    public static void sneakyRun(ThrowingRunnable runnable) {
+        try { runnable.run(); }
+        catch (Throwable t) { throw sneakyThrow(t); }
+    }
+
+    /**
+     * Converts Checked throwing function -> standard function, any checked exceptions are rethrown unchanged without
+     * being declared, see {@link #sneakyThrow(Throwable)}
+     * @param function function that can throw a checked exception
+     * @return function that does not declare checked exceptions
+     */
+    public static <In, Out> Function<In, Out> sneaky(ThrowingFunction<In, Out> function) {
+        return (In in) -> {
+            try { return function.apply(in); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for BiFunctions */
+    public static <In1, In2, Out> BiFunction<In1, In2, Out> sneaky(ThrowingBiFunction<In1, In2, Out> function) {
+        return (In1 in1, In2 in2) -> {
+            try { return function.apply(in1, in2); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for Runnables */
+    public static Runnable sneaky(ThrowingRunnable runnable) {
+        return () -> {
+            try { runnable.run(); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for Consumers */
+    public static <T> Consumer<T> sneaky(ThrowingConsumer<T> consumer) {
+        return (T t) -> {
+            try { consumer.accept(t); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for BiConsumers */
+    public static <T, U> BiConsumer<T, U> sneaky(ThrowingBiConsumer<T, U> consumer) {
+        return (T t, U u) -> {
+            try { consumer.accept(t, u); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntFunctions */
+    public static <R> IntFunction<R> sneakyIntFunction(ThrowingIntFunction<R> function) {
+        return (int value) -> {
+            try { return function.apply(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntSuppliers */
+    public static IntSupplier sneakyIntSupplier(ThrowingIntSupplier function) {
+        return () -> {
+            try { return function.getAsInt(); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntPredicates */
+    public static IntPredicate sneakyIntPredicate(ThrowingIntPredicate function) {
+        return (int value) -> {
+            try { return function.test(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntConsumers */
+    public static IntConsumer sneakyIntConsumer(ThrowingIntConsumer function) {
+        return (int value) -> {
+            try { function.accept(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntUnaryOperators */
+    public static IntUnaryOperator sneakyIntUnaryOperator(ThrowingIntUnaryOperator function) {
+        return (int operand) -> {
+            try { return function.applyAsInt(operand); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntBinaryOperators */
+    public static IntBinaryOperator sneakyIntBinaryOperator(ThrowingIntBinaryOperator function) {
+        return (int left, int right) -> {
+            try { return function.applyAsInt(left, right); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntToLongFunctions */
+    public static IntToLongFunction sneakyIntToLongFunction(ThrowingIntToLongFunction function) {
+        return (int value) -> {
+            try { return function.applyAsLong(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for IntToDoubleFunctions */
+    public static IntToDoubleFunction sneakyIntToDoubleFunction(ThrowingIntToDoubleFunction function) {
+        return (int value) -> {
+            try { return function.applyAsDouble(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ToIntFunctions */
+    public static <T> ToIntFunction<T> sneakyToIntFunction(ThrowingToIntFunction<T> function) {
+        return (T value) -> {
+            try { return function.applyAsInt(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ToIntBiFunctions */
+    public static <T, U> ToIntBiFunction<T, U> sneakyToIntBiFunction(ThrowingToIntBiFunction<T, U> function) {
+        return (T t, U u) -> {
+            try { return function.applyAsInt(t, u); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ObjIntConsumers */
+    public static <T> ObjIntConsumer<T> sneakyObjIntConsumer(ThrowingObjIntConsumer<T> function) {
+        return (T t, int value) -> {
+            try { function.accept(t, value); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongFunctions */
+    public static <R> LongFunction<R> sneakyLongFunction(ThrowingLongFunction<R> function) {
+        return (long value) -> {
+            try { return function.apply(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongSuppliers */
+    public static LongSupplier sneakyLongSupplier(ThrowingLongSupplier function) {
+        return () -> {
+            try { return function.getAsLong(); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongPredicates */
+    public static LongPredicate sneakyLongPredicate(ThrowingLongPredicate function) {
+        return (long value) -> {
+            try { return function.test(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongConsumers */
+    public static LongConsumer sneakyLongConsumer(ThrowingLongConsumer function) {
+        return (long value) -> {
+            try { function.accept(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongUnaryOperators */
+    public static LongUnaryOperator sneakyLongUnaryOperator(ThrowingLongUnaryOperator function) {
+        return (long operand) -> {
+            try { return function.applyAsLong(operand); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongBinaryOperators */
+    public static LongBinaryOperator sneakyLongBinaryOperator(ThrowingLongBinaryOperator function) {
+        return (long left, long right) -> {
+            try { return function.applyAsLong(left, right); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongToIntFunctions */
+    public static LongToIntFunction sneakyLongToIntFunction(ThrowingLongToIntFunction function) {
+        return (long value) -> {
+            try { return function.applyAsInt(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for LongToDoubleFunctions */
+    public static LongToDoubleFunction sneakyLongToDoubleFunction(ThrowingLongToDoubleFunction function) {
+        return (long value) -> {
+            try { return function.applyAsDouble(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ToLongFunctions */
+    public static <T> ToLongFunction<T> sneakyToLongFunction(ThrowingToLongFunction<T> function) {
+        return (T value) -> {
+            try { return function.applyAsLong(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ToLongBiFunctions */
+    public static <T, U> ToLongBiFunction<T, U> sneakyToLongBiFunction(ThrowingToLongBiFunction<T, U> function) {
+        return (T t, U u) -> {
+            try { return function.applyAsLong(t, u); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ObjLongConsumers */
+    public static <T> ObjLongConsumer<T> sneakyObjLongConsumer(ThrowingObjLongConsumer<T> function) {
+        return (T t, long value) -> {
+            try { function.accept(t, value); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleFunctions */
+    public static <R> DoubleFunction<R> sneakyDoubleFunction(ThrowingDoubleFunction<R> function) {
+        return (double value) -> {
+            try { return function.apply(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleSuppliers */
+    public static DoubleSupplier sneakyDoubleSupplier(ThrowingDoubleSupplier function) {
+        return () -> {
+            try { return function.getAsDouble(); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoublePredicates */
+    public static DoublePredicate sneakyDoublePredicate(ThrowingDoublePredicate function) {
+        return (double value) -> {
+            try { return function.test(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleConsumers */
+    public static DoubleConsumer sneakyDoubleConsumer(ThrowingDoubleConsumer function) {
+        return (double value) -> {
+            try { function.accept(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleUnaryOperators */
+    public static DoubleUnaryOperator sneakyDoubleUnaryOperator(ThrowingDoubleUnaryOperator function) {
+        return (double operand) -> {
+            try { return function.applyAsDouble(operand); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleBinaryOperators */
+    public static DoubleBinaryOperator sneakyDoubleBinaryOperator(ThrowingDoubleBinaryOperator function) {
+        return (double left, double right) -> {
+            try { return function.applyAsDouble(left, right); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleToIntFunctions */
+    public static DoubleToIntFunction sneakyDoubleToIntFunction(ThrowingDoubleToIntFunction function) {
+        return (double value) -> {
+            try { return function.applyAsInt(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for DoubleToLongFunctions */
+    public static DoubleToLongFunction sneakyDoubleToLongFunction(ThrowingDoubleToLongFunction function) {
+        return (double value) -> {
+            try { return function.applyAsLong(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ToDoubleFunctions */
+    public static <T> ToDoubleFunction<T> sneakyToDoubleFunction(ThrowingToDoubleFunction<T> function) {
+        return (T value) -> {
+            try { return function.applyAsDouble(value); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ToDoubleBiFunctions */
+    public static <T, U> ToDoubleBiFunction<T, U> sneakyToDoubleBiFunction(ThrowingToDoubleBiFunction<T, U> function) {
+        return (T t, U u) -> {
+            try { return function.applyAsDouble(t, u); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for ObjDoubleConsumers */
+    public static <T> ObjDoubleConsumer<T> sneakyObjDoubleConsumer(ThrowingObjDoubleConsumer<T> function) {
+        return (T t, double value) -> {
+            try { function.accept(t, value); }
+            catch (Throwable ex) { throw sneakyThrow(ex); }
+        };
+    }
+
+    /** As {@link Unchecker#sneaky(alexh.Unchecker.ThrowingFunction)} for BooleanSuppliers */
+    public static BooleanSupplier sneakyBooleanSupplier(ThrowingBooleanSupplier function) {
+        return () -> {
+            try { return function.getAsBoolean(); }
+            catch (Throwable t) { throw sneakyThrow(t); }
+        };
+    }
+
+    /**
+     * Converts Checked throwing function -> function returning a {@link Result}, which holds either the function's
+     * output or the exception it threw. Exceptions are kept as data rather than thrown, so eg a stream of records
+     * carries on past failures. Errors are still thrown.
+     * <pre>{@code
+     *  List<Result<Record>> parsed = lines.stream()
+     *      .map(Unchecker.attempt(Record::parse))
+     *      .collect(toList());
+     * }</pre>
+     * @param function function that can throw a checked exception
+     * @return function that will not throw exceptions
+     */
+    public static <In, Out> Function<In, Result<Out>> attempt(ThrowingFunction<In, Out> function) {
+        return (In in) -> {
+            try { return Result.success(function.apply(in)); }
+            catch (Error e) { throw e; }
+            catch (Throwable t) { return Result.failure(t); }
+        };
+    }
+
+    /**
+     * Gets the supplier result as a {@link Result}, holding either the output or the exception thrown
+     * @param supplier supplier that can throw a checked exception
+     * @return result of the supplier
+     */
+    public static <T> Result<T> attemptGet(ThrowingSupplier<T> supplier) {
+        try { return Result.success(supplier.get()); }
+        catch (Error e) { throw e; }
+        catch (Throwable t) { return Result.failure(t); }
+    }
+
+    /**
+     * Outcome of a computation that could throw, either a success holding a value, which may be null, or a failure
+     * holding the exception thrown. Functions applied to a failure are skipped, exceptions thrown by functions
+     * applied to a success produce a failure.
+     * @see #attempt(alexh.Unchecker.ThrowingFunction)
+     */
+    public static final class Result<T> {
+
+        private final T value;
+        private final Throwable failure;
+
+        private Result(T value, Throwable failure) {
+            this.value = value;
+            this.failure = failure;
+        }
+
+        public static <T> Result<T> success(T value) {
+            return new Result<>(value, null);
+        }
+
+        public static <T> Result<T> failure(Throwable failure) {
+            return new Result<>(null, Objects.requireNonNull(failure));
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        public boolean isFailure() {
+            return failure != null;
+        }
+
+        /** @return exception of a failure, or null if a success */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /** @return result of applying the mapper to a success's value, or this failure */
+        @SuppressWarnings("unchecked")
+        public <U> Result<U> map(ThrowingFunction<? super T, ? extends U> mapper) {
+            if (failure != null) return (Result<U>) this;
+            try { return success(mapper.apply(value)); }
+            catch (Error e) { throw e; }
+            catch (Throwable t) { return failure(t); }
+        }
+
+        /** @return result returned by the mapper for a success's value, or this failure */
+        @SuppressWarnings("unchecked")
+        public <U> Result<U> flatMap(ThrowingFunction<? super T, Result<U>> mapper) {
+            if (failure != null) return (Result<U>) this;
+            try { return Objects.requireNonNull(mapper.apply(value)); }
+            catch (Error e) { throw e; }
+            catch (Throwable t) { return failure(t); }
+        }
+
+        /** @return success of the recovery function applied to a failure's exception, or this success */
+        public Result<T> recover(ThrowingFunction<? super Throwable, ? extends T> recovery) {
+            if (failure == null) return this;
+            try { return success(recovery.apply(failure)); }
+            catch (Error e) { throw e; }
+            catch (Throwable t) { return failure(t); }
+        }
+
+        /** @return value of a success, otherwise other */
+        public T orElse(T other) {
+            return failure == null ? value : other;
+        }
+
+        /**
+         * Returns the value of a success, or throws the exception of a failure wrapping checked exceptions using
+         * the input exception transformer, unchecked exceptions & errors are rethrown unchanged
+         * @param exTransformer checked -> unchecked exception transformer
+         * @return value of a success
+         */
+        public T orElseThrow(Function<Throwable, ? extends RuntimeException> exTransformer) {
+            if (failure == null) return value;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            throw exTransformer.apply(failure);
+        }
+
+        /**
+         * As {@link #orElseThrow(java.util.function.Function)}
+         * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+         */
+        public T orElseThrow() {
+            return orElseThrow(DEFAULT_EXCEPTION_TRANSFORMER);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Result)) return false;
+            final Result<?> other = (Result<?>) o;
+            return Objects.equals(value, other.value) && Objects.equals(failure, other.failure);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(value) + Objects.hashCode(failure);
+        }
+
+        @Override
+        public String toString() {
+            return failure == null ? "Success[" + value + "]" : "Failure[" + failure + "]";
+        }
+    }
+
+    /**
+     * Converts Checked throwing function -> function for Stream#flatMap that skips failed elements, routing the
+     * element & its exception to the input {@link Failures} sink instead of aborting the stream. Errors are still
+     * thrown, as is {@link FailureBudgetExceededException} once the failures exceed the sink's budget.
+     * <pre>{@code
+     *  try (Failures<String> failures = Failures.toDeadLetterFile(path, 1000)) {
+     *      List<Record> records = lines.stream()
+     *          .flatMap(Unchecker.tolerant(Record::parse, failures))
+     *          .collect(toList());
+     *  }
+     * }</pre>
+     * @param function function that can throw a checked exception
+     * @param failures receives failed elements
+     * @return function returning a stream of the function's output, or an empty stream on failure
+     */
+    public static <In, Out> Function<In, Stream<Out>> tolerant(ThrowingFunction<In, Out> function, Failures<? super In> failures) {
+        Objects.requireNonNull(failures);
+        return (In in) -> {
+            final Out out;
+            try { out = function.apply(in); }
+            catch (Error e) { throw e; }
+            catch (Throwable t) {
+                failures.record(in, t);
+                return Stream.empty();
+            }
+            failures.successes.increment();
+            return Stream.of(out);
+        };
+    }
+
+    /**
+     * Thread-safe sink of elements that failed to process, with their exceptions, & counts of failures & successes.
+     * Failures beyond the error budget, maxFailures, abort processing by throwing
+     * {@link FailureBudgetExceededException}. Close to release a dead letter file.
+     * @see #tolerant(alexh.Unchecker.ThrowingFunction, alexh.Unchecker.Failures)
+     */
+    public static class Failures<T> implements AutoCloseable {
+
+        private final BiConsumer<? super T, ? super Throwable> sink;
+        private final long maxFailures;
+        private final Closeable resource;
+        private final AtomicLong failures = new AtomicLong();
+        private final LongAdder successes = new LongAdder();
+        private final List<Failure<T>> retained = new ArrayList<>();
+        private final int maxRetained;
+
+        private Failures(BiConsumer<? super T, ? super Throwable> sink, long maxFailures, int maxRetained, Closeable resource) {
+            if (maxFailures < 0) throw new IllegalArgumentException("negative maxFailures " + maxFailures);
+            this.sink = sink;
+            this.maxFailures = maxFailures;
+            this.maxRetained = maxRetained;
+            this.resource = resource;
+        }
+
+        /**
+         * @param maxRetained maximum failures to keep in {@link #retained()}, further failures are only counted
+         * @param maxFailures failures to tolerate before aborting
+         * @return failures retaining a bounded list of failed elements & their exceptions
+         */
+        public static <T> Failures<T> collecting(int maxRetained, long maxFailures) {
+            if (maxRetained < 0) throw new IllegalArgumentException("negative maxRetained " + maxRetained);
+            return new Failures<>(null, maxFailures, maxRetained, null);
+        }
+
+        /**
+         * @param sink receives each failed element & its exception, must be thread-safe for parallel streams
+         * @param maxFailures failures to tolerate before aborting
+         * @return failures passed to the sink
+         */
+        public static <T> Failures<T> to(BiConsumer<? super T, ? super Throwable> sink, long maxFailures) {
+            return new Failures<>(Objects.requireNonNull(sink), maxFailures, 0, null);
+        }
+
+        /**
+         * Appends a line per failure to the file, of the element, a tab, then the exception. Backslashes, tabs &
+         * line breaks within either are escaped as \\, \t, \n & \r, so each failure stays one tab separated
+         * line. Lines are written through a buffer, close to flush.
+         * @param file dead letter file, created if absent
+         * @param maxFailures failures to tolerate before aborting
+         * @return failures written to the file
+         * @throws IOException opening the file
+         */
+        public static <T> Failures<T> toDeadLetterFile(Path file, long maxFailures) throws IOException {
+            final BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            final BiConsumer<T, Throwable> sink = (element, failure) -> {
+                synchronized (writer) {
+                    try {
+                        writer.write(escape(String.valueOf(element)) + "\t" + escape(String.valueOf(failure)));
+                        writer.newLine();
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            return new Failures<>(sink, maxFailures, 0, writer);
+        }
+
+        /** @return text with backslashes, tabs & line breaks escaped */
+        private static String escape(String text) {
+            final StringBuilder escaped = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); ++i) {
+                final char c = text.charAt(i);
+                switch (c) {
+                    case '\\': escaped.append("\\\\"); break;
+                    case '\t': escaped.append("\\t"); break;
+                    case '\n': escaped.append("\\n"); break;
+                    case '\r': escaped.append("\\r"); break;
+                    default: escaped.append(c);
+                }
+            }
+            return escaped.toString();
+        }
+
+        /**
+         * Records a failed element
+         * @throws FailureBudgetExceededException if this failure exceeds maxFailures
+         */
+        public void record(T element, Throwable failure) {
+            final long count = failures.incrementAndGet();
+            if (sink != null) sink.accept(element, failure);
+            else synchronized (retained) {
+                if (retained.size() < maxRetained) retained.add(new Failure<>(element, failure));
+            }
+            if (count > maxFailures) throw new FailureBudgetExceededException(count, maxFailures, failure);
+        }
+
+        /** @return number of failures recorded */
+        public long failureCount() {
+            return failures.get();
+        }
+
+        /** @return number of elements processed successfully */
+        public long successCount() {
+            return successes.sum();
+        }
+
+        /** @return retained failures, up to maxRetained, only populated by {@link #collecting(int, long)} */
+        public List<Failure<T>> retained() {
+            synchronized (retained) {
+                return new ArrayList<>(retained);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (resource != null) resource.close();
+        }
+    }
+
+    /** Element that failed to process, with its exception */
+    public static final class Failure<T> {
+        private final T element;
+        private final Throwable exception;
+
+        public Failure(T element, Throwable exception) {
+            this.element = element;
+            this.exception = exception;
+        }
+
+        public T getElement() {
+            return element;
+        }
+
+        public Throwable getException() {
+            return exception;
+        }
+
+        @Override
+        public String toString() {
+            return element + "\t" + exception;
+        }
+    }
+
+    /** Thrown when failures exceed the error budget of a {@link Failures}, caused by the failure exceeding it */
+    public static class FailureBudgetExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long failureCount;
+
+        public FailureBudgetExceededException(long failureCount, long maxFailures, Throwable cause) {
+            super(failureCount + " failures exceeded the budget of " + maxFailures, cause);
+            this.failureCount = failureCount;
+        }
+
+        /** @return number of failures when the budget was exceeded */
+        public long getFailureCount() {
+            return failureCount;
+        }
+    }
+
+    /**
+     * Maps each input with a blocking function, eg file reads or JDBC calls, running up to maxConcurrency calls at
+     * a time on the executor. Unlike parallelStream this does not tie up the common ForkJoinPool with blocked
+     * workers, & when called from, or run on, a ForkJoinPool blocks via ForkJoinPool#managedBlock so the pool can
+     * compensate. The first failure interrupts the other in-flight calls, no further inputs are started, & is
+     * thrown once they finish, wrapping checked exceptions using the input exception transformer.
+     * <pre>{@code
+     *  List<byte[]> contents = Unchecker.parallelMap(paths, Files::readAllBytes, 16);
+     * }</pre>
+     * @param inputs inputs to map
+     * @param function blocking function that can throw a checked exception
+     * @param maxConcurrency maximum number of concurrent function calls
+     * @param executor runs the function calls
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return outputs in input order
+     */
+    public static <In, Out> List<Out> parallelMap(Collection<In> inputs,
+                                                  ThrowingFunction<In, Out> function,
+                                                  int maxConcurrency,
+                                                  Executor executor,
+                                                  Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return ParallelMap.map(inputs, function, maxConcurrency, executor, true, exTransformer);
+    }
+
+    /**
+     * As {@link #parallelMap(java.util.Collection, alexh.Unchecker.ThrowingFunction, int, java.util.concurrent.Executor, java.util.function.Function)}
+     * running on a shared pool of daemon threads dedicated to blocking calls
+     */
+    public static <In, Out> List<Out> parallelMap(Collection<In> inputs,
+                                                  ThrowingFunction<In, Out> function,
+                                                  int maxConcurrency,
+                                                  Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return parallelMap(inputs, function, maxConcurrency, ParallelMap.blockingExecutor(), exTransformer);
+    }
+
+    /**
+     * As {@link #parallelMap(java.util.Collection, alexh.Unchecker.ThrowingFunction, int, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <In, Out> List<Out> parallelMap(Collection<In> inputs, ThrowingFunction<In, Out> function, int maxConcurrency) {
+        return parallelMap(inputs, function, maxConcurrency, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * As {@link #parallelMap(java.util.Collection, alexh.Unchecker.ThrowingFunction, int, java.util.concurrent.Executor, java.util.function.Function)}
+     * returning outputs in completion order
+     */
+    public static <In, Out> List<Out> parallelMapUnordered(Collection<In> inputs,
+                                                           ThrowingFunction<In, Out> function,
+                                                           int maxConcurrency,
+                                                           Executor executor,
+                                                           Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return ParallelMap.map(inputs, function, maxConcurrency, executor, false, exTransformer);
+    }
+
+    /**
+     * As {@link #parallelMap(java.util.Collection, alexh.Unchecker.ThrowingFunction, int, java.util.function.Function)}
+     * returning outputs in completion order
+     */
+    public static <In, Out> List<Out> parallelMapUnordered(Collection<In> inputs,
+                                                           ThrowingFunction<In, Out> function,
+                                                           int maxConcurrency,
+                                                           Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return parallelMapUnordered(inputs, function, maxConcurrency, ParallelMap.blockingExecutor(), exTransformer);
+    }
+
+    /**
+     * As {@link #parallelMap(java.util.Collection, alexh.Unchecker.ThrowingFunction, int)}
+     * returning outputs in completion order
+     */
+    public static <In, Out> List<Out> parallelMapUnordered(Collection<In> inputs, ThrowingFunction<In, Out> function, int maxConcurrency) {
+        return parallelMapUnordered(inputs, function, maxConcurrency, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Runs every task concurrently & waits for them all, scoped to this call so no task outlives it. From Java 21
+     * each task runs on its own virtual thread, so thousands of blocking calls can be forked cheaply, before that on
+     * a shared pool of daemon threads dedicated to blocking calls. On the first failure the other tasks are
+     * interrupted, no further tasks are started, & the failure is thrown once they finish, wrapping checked
+     * exceptions using the input exception transformer.
+     * <pre>{@code
+     *  List<Response> responses = Unchecker.forkAll(Arrays.asList(() -> users.fetch(id), () -> orders.fetch(id)),
+     *      UncheckedIOException::new);
+     * }</pre>
+     * @param tasks tasks that can throw checked exceptions
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return task results in task order
+     */
+    public static <T> List<T> forkAll(List<ThrowingSupplier<T>> tasks,
+                                      Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return ParallelMap.forkAll(tasks, exTransformer);
+    }
+
+    /**
+     * As {@link #forkAll(java.util.List, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> List<T> forkAll(List<ThrowingSupplier<T>> tasks) {
+        return forkAll(tasks, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Runs every task concurrently, as {@link #forkAll(java.util.List, java.util.function.Function)}, returning the
+     * first successful result once available & interrupting the other tasks. If every task fails the first failure
+     * is thrown, with the others suppressed, wrapping checked exceptions using the input exception transformer.
+     * <pre>{@code
+     *  Quote quote = Unchecker.forkAny(Arrays.asList(() -> primary.quote(order), () -> fallback.quote(order)),
+     *      UncheckedIOException::new);
+     * }</pre>
+     * @param tasks non-empty tasks that can throw checked exceptions
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return first successful task result
+     */
+    public static <T> T forkAny(List<ThrowingSupplier<T>> tasks,
+                                Function<Throwable, ? extends RuntimeException> exTransformer) {
+        return ParallelMap.forkAny(tasks, exTransformer);
+    }
+
+    /**
+     * As {@link #forkAny(java.util.List, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> T forkAny(List<ThrowingSupplier<T>> tasks) {
+        return forkAny(tasks, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Runs a supplier that may throw checked exceptions asynchronously on the executor. Unlike
+     * CompletableFuture#supplyAsync failures complete the future with the thrown exception itself, checked or not,
+     * rather than a CompletionException wrapping it, so handlers see the original cause without unwrapping.
+     * <pre>{@code
+     *  CompletableFuture<byte[]> content = Unchecker.uncheckAsync(() -> Files.readAllBytes(path), executor);
+     * }</pre>
+     * @param supplier supplier that can throw a checked exception
+     * @param executor runs the supplier
+     * @return future result of the supplier
+     */
+    public static <T> CompletableFuture<T> uncheckAsync(ThrowingSupplier<T> supplier, Executor executor) {
+        Objects.requireNonNull(supplier);
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(supplier.get());
+            }
+            catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * As CompletionStage#thenApply with a function that may throw checked exceptions. Failures of the stage, or the
+     * function, complete the returned future with the original exception, without CompletionException wrapping.
+     * <pre>{@code
+     *  CompletableFuture<Config> config = Unchecker.thenApply(content, Config::parse);
+     * }</pre>
+     * @param stage stage whose result is input to the function
+     * @param function function that can throw a checked exception
+     * @return future result of the function
+     */
+    public static <T, U> CompletableFuture<U> thenApply(CompletionStage<T> stage,
+                                                        ThrowingFunction<? super T, ? extends U> function) {
+        Objects.requireNonNull(function);
+        final CompletableFuture<U> future = new CompletableFuture<>();
+        stage.whenComplete((value, ex) -> {
+            if (ex != null) future.completeExceptionally(unwrap(ex));
+            else {
+                try {
+                    future.complete(function.apply(value));
+                }
+                catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * As CompletionStage#thenCompose with a function that may throw checked exceptions. Failures of the stage, the
+     * function, or the stage it returns, complete the returned future with the original exception, without
+     * CompletionException wrapping.
+     * <pre>{@code
+     *  CompletableFuture<User> user = Unchecker.thenCompose(session, s -> users.fetchAsync(s.userId()));
+     * }</pre>
+     * @param stage stage whose result is input to the function
+     * @param function function returning a stage that can throw a checked exception
+     * @return future result of the stage returned by the function
+     */
+    public static <T, U> CompletableFuture<U> thenCompose(CompletionStage<T> stage,
+                                                          ThrowingFunction<? super T, ? extends CompletionStage<U>> function) {
+        Objects.requireNonNull(function);
+        final CompletableFuture<U> future = new CompletableFuture<>();
+        stage.whenComplete((value, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(unwrap(ex));
+                return;
+            }
+            final CompletionStage<U> next;
+            try {
+                next = Objects.requireNonNull(function.apply(value), "function returned null stage");
+            }
+            catch (Throwable t) {
+                future.completeExceptionally(t);
+                return;
+            }
+            next.whenComplete((nextValue, nextEx) -> {
+                if (nextEx != null) future.completeExceptionally(unwrap(nextEx));
+                else future.complete(nextValue);
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Strips any CompletionException & ExecutionException layers, as added by CompletableFuture & Future#get,
+     * returning the original cause. Allocates nothing.
+     * @param thrown exception thrown by, or completing, a future
+     * @return innermost cause that is not a CompletionException/ExecutionException, or the innermost layer if it
+     *     has no cause
+     */
+    public static Throwable unwrap(Throwable thrown) {
+        Throwable cause = thrown;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Waits for the future's result. If it failed throws the {@link #unwrap(Throwable) original cause}, wrapping
+     * checked exceptions using the input exception transformer.
+     * @param future future to wait for
+     * @param exTransformer checked -> unchecked exception transformer
+     * @return result of the future
+     */
+    public static <T> T uncheckedJoin(CompletableFuture<T> future,
+                                      Function<Throwable, ? extends RuntimeException> exTransformer) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            final Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw exTransformer.apply(cause);
+        }
+    }
+
+    /**
+     * As {@link #uncheckedJoin(java.util.concurrent.CompletableFuture, java.util.function.Function)}
+     * wrapping checked exceptions using the {@link #getDefaultExceptionTransformer() default exception transformer}
+     */
+    public static <T> T uncheckedJoin(CompletableFuture<T> future) {
+        return uncheckedJoin(future, DEFAULT_EXCEPTION_TRANSFORMER);
+    }
+
+    /**
+     * Unchecked wrapper of a checked exception, with the checked exception as its cause. Does not capture its own
+     * stack trace, the cause's stack trace locates the failure.
+     * @see #STACKLESS_EXCEPTION_TRANSFORMER
+     */
+    public static class UncheckedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public UncheckedException(Throwable cause) {
+            super(cause == null ? null : cause.toString(), cause, true, false);
+        }
+    }
+
+    /**
+     * Represents a supplier of results, that could throw a checked exception
+     * @see java.util.function.Supplier
+     */
+    @FunctionalInterface
+    public interface ThrowingSupplier<T> {
+        T get() throws Throwable;
+    }
+
+    /**
+     * Operation that returns no result, but could throw a checked exception
+     * @see java.lang.Runnable
+     */
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Throwable;
+    }
+
+    /**
+     * Function that accepts a single argument and produces a result, but could throw a checked exception
+     * @see java.util.function.Function
+     */
+    @FunctionalInterface
+    public interface ThrowingFunction<In, Out> {
+        Out apply(In in) throws Throwable;
+    }
+
+    /**
+     * Function that accepts two arguments and produces a result, but could throw a checked exception
+     * @see java.util.function.BiFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingBiFunction<In1, In2, Out> {
+        Out apply(In1 in1, In2 in2) throws Throwable;
+    }
+
+    /**
+     * Operation that accepts a single input argument and returns no result, but could throw a checked exception
+     * @see java.util.function.Consumer
+     */
+    @FunctionalInterface
+    public interface ThrowingConsumer<T> {
+        void accept(T t) throws Throwable;
+    }
+
+    /**
+     * Operation that accepts two arguments and returns no result, but could throw a checked exception
+     * @see java.util.function.BiConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingBiConsumer<T, U> {
+        void accept(T t, U u) throws Throwable;
+    }
+
+    /**
+     * IntFunction that could throw a checked exception
+     * @see java.util.function.IntFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingIntFunction<R> {
+        R apply(int value) throws Throwable;
+    }
+
+    /**
+     * IntSupplier that could throw a checked exception
+     * @see java.util.function.IntSupplier
+     */
+    @FunctionalInterface
+    public interface ThrowingIntSupplier {
+        int getAsInt() throws Throwable;
+    }
+
+    /**
+     * IntPredicate that could throw a checked exception
+     * @see java.util.function.IntPredicate
+     */
+    @FunctionalInterface
+    public interface ThrowingIntPredicate {
+        boolean test(int value) throws Throwable;
+    }
+
+    /**
+     * IntConsumer that could throw a checked exception
+     * @see java.util.function.IntConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingIntConsumer {
+        void accept(int value) throws Throwable;
+    }
+
+    /**
+     * IntUnaryOperator that could throw a checked exception
+     * @see java.util.function.IntUnaryOperator
+     */
+    @FunctionalInterface
+    public interface ThrowingIntUnaryOperator {
+        int applyAsInt(int operand) throws Throwable;
+    }
+
+    /**
+     * IntBinaryOperator that could throw a checked exception
+     * @see java.util.function.IntBinaryOperator
+     */
+    @FunctionalInterface
+    public interface ThrowingIntBinaryOperator {
+        int applyAsInt(int left, int right) throws Throwable;
+    }
+
+    /**
+     * IntToLongFunction that could throw a checked exception
+     * @see java.util.function.IntToLongFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingIntToLongFunction {
+        long applyAsLong(int value) throws Throwable;
+    }
+
+    /**
+     * IntToDoubleFunction that could throw a checked exception
+     * @see java.util.function.IntToDoubleFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingIntToDoubleFunction {
+        double applyAsDouble(int value) throws Throwable;
+    }
+
+    /**
+     * ToIntFunction that could throw a checked exception
+     * @see java.util.function.ToIntFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingToIntFunction<T> {
+        int applyAsInt(T value) throws Throwable;
+    }
+
+    /**
+     * ToIntBiFunction that could throw a checked exception
+     * @see java.util.function.ToIntBiFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingToIntBiFunction<T, U> {
+        int applyAsInt(T t, U u) throws Throwable;
+    }
+
+    /**
+     * ObjIntConsumer that could throw a checked exception
+     * @see java.util.function.ObjIntConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingObjIntConsumer<T> {
+        void accept(T t, int value) throws Throwable;
+    }
+
+    /**
+     * LongFunction that could throw a checked exception
+     * @see java.util.function.LongFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingLongFunction<R> {
+        R apply(long value) throws Throwable;
+    }
+
+    /**
+     * LongSupplier that could throw a checked exception
+     * @see java.util.function.LongSupplier
+     */
+    @FunctionalInterface
+    public interface ThrowingLongSupplier {
+        long getAsLong() throws Throwable;
+    }
+
+    /**
+     * LongPredicate that could throw a checked exception
+     * @see java.util.function.LongPredicate
+     */
+    @FunctionalInterface
+    public interface ThrowingLongPredicate {
+        boolean test(long value) throws Throwable;
+    }
+
+    /**
+     * LongConsumer that could throw a checked exception
+     * @see java.util.function.LongConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingLongConsumer {
+        void accept(long value) throws Throwable;
+    }
+
+    /**
+     * LongUnaryOperator that could throw a checked exception
+     * @see java.util.function.LongUnaryOperator
+     */
+    @FunctionalInterface
+    public interface ThrowingLongUnaryOperator {
+        long applyAsLong(long operand) throws Throwable;
+    }
+
+    /**
+     * LongBinaryOperator that could throw a checked exception
+     * @see java.util.function.LongBinaryOperator
+     */
+    @FunctionalInterface
+    public interface ThrowingLongBinaryOperator {
+        long applyAsLong(long left, long right) throws Throwable;
+    }
+
+    /**
+     * LongToIntFunction that could throw a checked exception
+     * @see java.util.function.LongToIntFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingLongToIntFunction {
+        int applyAsInt(long value) throws Throwable;
+    }
+
+    /**
+     * LongToDoubleFunction that could throw a checked exception
+     * @see java.util.function.LongToDoubleFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingLongToDoubleFunction {
+        double applyAsDouble(long value) throws Throwable;
+    }
+
+    /**
+     * ToLongFunction that could throw a checked exception
+     * @see java.util.function.ToLongFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingToLongFunction<T> {
+        long applyAsLong(T value) throws Throwable;
+    }
+
+    /**
+     * ToLongBiFunction that could throw a checked exception
+     * @see java.util.function.ToLongBiFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingToLongBiFunction<T, U> {
+        long applyAsLong(T t, U u) throws Throwable;
+    }
+
+    /**
+     * ObjLongConsumer that could throw a checked exception
+     * @see java.util.function.ObjLongConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingObjLongConsumer<T> {
+        void accept(T t, long value) throws Throwable;
+    }
+
+    /**
+     * DoubleFunction that could throw a checked exception
+     * @see java.util.function.DoubleFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleFunction<R> {
+        R apply(double value) throws Throwable;
+    }
+
+    /**
+     * DoubleSupplier that could throw a checked exception
+     * @see java.util.function.DoubleSupplier
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleSupplier {
+        double getAsDouble() throws Throwable;
+    }
+
+    /**
+     * DoublePredicate that could throw a checked exception
+     * @see java.util.function.DoublePredicate
+     */
+    @FunctionalInterface
+    public interface ThrowingDoublePredicate {
+        boolean test(double value) throws Throwable;
+    }
+
+    /**
+     * DoubleConsumer that could throw a checked exception
+     * @see java.util.function.DoubleConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleConsumer {
+        void accept(double value) throws Throwable;
+    }
+
+    /**
+     * DoubleUnaryOperator that could throw a checked exception
+     * @see java.util.function.DoubleUnaryOperator
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleUnaryOperator {
+        double applyAsDouble(double operand) throws Throwable;
+    }
+
+    /**
+     * DoubleBinaryOperator that could throw a checked exception
+     * @see java.util.function.DoubleBinaryOperator
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleBinaryOperator {
+        double applyAsDouble(double left, double right) throws Throwable;
+    }
+
+    /**
+     * DoubleToIntFunction that could throw a checked exception
+     * @see java.util.function.DoubleToIntFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleToIntFunction {
+        int applyAsInt(double value) throws Throwable;
+    }
+
+    /**
+     * DoubleToLongFunction that could throw a checked exception
+     * @see java.util.function.DoubleToLongFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingDoubleToLongFunction {
+        long applyAsLong(double value) throws Throwable;
+    }
+
+    /**
+     * ToDoubleFunction that could throw a checked exception
+     * @see java.util.function.ToDoubleFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingToDoubleFunction<T> {
+        double applyAsDouble(T value) throws Throwable;
+    }
+
+    /**
+     * ToDoubleBiFunction that could throw a checked exception
+     * @see java.util.function.ToDoubleBiFunction
+     */
+    @FunctionalInterface
+    public interface ThrowingToDoubleBiFunction<T, U> {
+        double applyAsDouble(T t, U u) throws Throwable;
+    }
+
+    /**
+     * ObjDoubleConsumer that could throw a checked exception
+     * @see java.util.function.ObjDoubleConsumer
+     */
+    @FunctionalInterface
+    public interface ThrowingObjDoubleConsumer<T> {
+        void accept(T t, double value) throws Throwable;
+    }
+
+    /**
+     * BooleanSupplier that could throw a checked exception
+     * @see java.util.function.BooleanSupplier
+     */
+    @FunctionalInterface
+    public interface ThrowingBooleanSupplier {
+        boolean getAsBoolean() throws Throwable;
     }
 }
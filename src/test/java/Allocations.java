@@ -0,0 +1,20 @@
+import static org.junit.Assume.assumeTrue;
+import java.lang.management.ManagementFactory;
+
+/** Measures heap allocation of the current thread, skipping the calling test on JVMs that cannot */
+final class Allocations {
+
+    private Allocations() {}
+
+    /** @return bytes allocated by the current thread while running the action */
+    static long allocatedBy(Runnable action) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        action.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}
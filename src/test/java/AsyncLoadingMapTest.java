@@ -0,0 +1,121 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.Fluent;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class AsyncLoadingMapTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final AtomicLong nanos = new AtomicLong();
+
+    private void runTasks() {
+        for (Runnable task; (task = tasks.poll()) != null; ) task.run();
+    }
+
+    @Test
+    public void loadsOnExecutor() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Fluent.AsyncLoadingMap<String, String> map = new Fluent.AsyncLoadingMap<>(key -> {
+            loads.incrementAndGet();
+            return key.toUpperCase();
+        }, tasks::add, Duration.ofMinutes(1));
+
+        CompletableFuture<String> future = map.get("a");
+        assertThat(future).isNotDone();
+        assertThat(map.get("a")).isSameAs(future);
+
+        runTasks();
+        assertThat(future.get()).isEqualTo("A");
+        assertThat(map.get("a")).isSameAs(future);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    public void refreshAheadServesStaleValue() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        Fluent.AsyncLoadingMap<String, Integer> map = new Fluent.AsyncLoadingMap<>(key -> version.incrementAndGet(),
+            RuntimeException::new, tasks::add, Duration.ofSeconds(5), nanos::get);
+
+        map.get("key");
+        runTasks();
+        assertThat(map.get("key").get()).isEqualTo(1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(map.get("key").get()).isEqualTo(1);
+        assertThat(map.get("key").get()).isEqualTo(1);
+        assertThat(tasks).hasSize(1);
+
+        runTasks();
+        assertThat(map.get("key").get()).isEqualTo(2);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    public void failuresAreNotCached() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Fluent.AsyncLoadingMap<String, Integer> map = new Fluent.AsyncLoadingMap<>(key -> {
+            if (loads.incrementAndGet() % 2 == 1) throw new IOException("backend down");
+            return loads.get();
+        }, IllegalStateException::new, tasks::add, Duration.ofSeconds(5), nanos::get);
+
+        CompletableFuture<Integer> failed = map.get("key");
+        runTasks();
+        assertThatThrownBy(failed::get)
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(map).isEmpty();
+
+        map.get("key");
+        runTasks();
+        assertThat(map.get("key").get()).isEqualTo(2);
+
+        // failed refresh keeps the stale value
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        map.get("key");
+        runTasks();
+        assertThat(map.get("key").get()).isEqualTo(2);
+        runTasks();
+        assertThat(map.get("key").get()).isEqualTo(4);
+    }
+
+    @Test
+    public void rejectedLoadsAndFailedPutsAreNotCached() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(1);
+        Fluent.AsyncLoadingMap<String, Integer> map = new Fluent.AsyncLoadingMap<>(String::length,
+            RuntimeException::new, task -> {
+                if (rejections.getAndDecrement() > 0) throw new RejectedExecutionException();
+                tasks.add(task);
+            }, Duration.ofSeconds(5), nanos::get);
+
+        CompletableFuture<Integer> rejected = map.get("key");
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(map).isEmpty();
+        map.get("key");
+        runTasks();
+        assertThat(map.get("key").get()).isEqualTo(3);
+
+        // rejected refresh keeps serving the stale value & retries later
+        rejections.set(1);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(map.get("key").get()).isEqualTo(3);
+        map.get("key");
+        assertThat(tasks).hasSize(1);
+
+        CompletableFuture<Integer> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        map.put("failed", failed);
+        map.put("null", CompletableFuture.completedFuture(null));
+        assertThat(map).containsOnlyKeys("key");
+    }
+}
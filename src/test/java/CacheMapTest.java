@@ -0,0 +1,107 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.Fluent;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class CacheMapTest {
+
+    @Test
+    public void lruEvictsLeastRecentlyUsed() {
+        Fluent.CacheMap<String, Integer> cache = new Fluent.CacheMap<>(3);
+        cache.append("a", 1).append("b", 2).append("c", 3);
+        cache.get("a");
+        cache.append("d", 4);
+
+        assertThat(cache).hasSize(3).containsKeys("a", "c", "d").doesNotContainKey("b");
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void weighted() {
+        Fluent.CacheMap<String, String> cache = new Fluent.CacheMap<>(10, (k, v) -> v.length(), Fluent.CacheMap.Policy.LRU);
+        cache.append("a", "12345").append("b", "1234").append("c", "12");
+
+        assertThat(cache).doesNotContainKey("a").containsKeys("b", "c");
+        assertThat(cache.weight()).isEqualTo(6);
+
+        cache.remove("b");
+        assertThat(cache.weight()).isEqualTo(2);
+
+        cache.append("huge", "12345678901");
+        assertThat(cache).doesNotContainKey("huge");
+        assertThat(cache.weight()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void replaceAllReweighs() {
+        Fluent.CacheMap<String, String> cache = new Fluent.CacheMap<>(10, (k, v) -> v.length(), Fluent.CacheMap.Policy.LRU);
+        cache.append("a", "1").append("b", "12").append("c", "123");
+
+        cache.replaceAll((key, value) -> value + "0");
+        assertThat(cache).containsEntry("a", "10").containsEntry("b", "120").containsEntry("c", "1230");
+        assertThat(cache.weight()).isEqualTo(9);
+
+        cache.replaceAll((key, value) -> value + value);
+        assertThat(cache.weight()).isEqualTo(cache.values().stream().mapToInt(String::length).sum());
+        assertThat(cache.weight()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void frequencyPoliciesResistScans() {
+        for (Fluent.CacheMap.Policy policy : new Fluent.CacheMap.Policy[]{ Fluent.CacheMap.Policy.LFU, Fluent.CacheMap.Policy.W_TINY_LFU }) {
+            Fluent.CacheMap<Integer, Integer> cache = new Fluent.CacheMap<>(100, policy);
+            for (int round = 0; round < 20; ++round) {
+                for (int hot = 0; hot < 50; ++hot) {
+                    if (cache.get(hot) == null) cache.put(hot, hot);
+                }
+            }
+            // one-off scan of cold keys, shorter than the sketch ageing period
+            for (int cold = 1_000; cold < 1_300; ++cold) {
+                if (cache.get(cold) == null) cache.put(cold, cold);
+            }
+
+            long hotRetained = cache.keySet().stream().filter(k -> k < 50).count();
+            assertThat(hotRetained).as(policy.toString()).isGreaterThanOrEqualTo(40);
+            assertThat(cache.size()).as(policy.toString()).isLessThanOrEqualTo(100);
+        }
+    }
+
+    @Test
+    public void lruLosesHotKeysToScans() {
+        Fluent.CacheMap<Integer, Integer> cache = new Fluent.CacheMap<>(100);
+        for (int hot = 0; hot < 50; ++hot) cache.put(hot, hot);
+        for (int cold = 1_000; cold < 2_000; ++cold) cache.put(cold, cold);
+
+        assertThat(cache.keySet()).allMatch(k -> k >= 1_000);
+    }
+
+    @Test
+    public void iteratorRemoval() {
+        Fluent.CacheMap<String, Integer> cache = new Fluent.CacheMap<>(10, Fluent.CacheMap.Policy.W_TINY_LFU);
+        cache.append("a", 1).append("b", 2).append("c", 3);
+
+        for (Iterator<Map.Entry<String, Integer>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue() != 2) it.remove();
+        }
+
+        assertThat(cache).hasSize(1).containsEntry("b", 2);
+        assertThat(cache.weight()).isEqualTo(1);
+    }
+
+    @Test
+    public void largeMaximumWeightIsNotPreallocated() {
+        AtomicReference<Fluent.CacheMap<String, byte[]>> cache = new AtomicReference<>();
+        long allocated = Allocations.allocatedBy(() -> {
+            cache.set(new Fluent.CacheMap<>(1L << 30, (k, v) -> v.length, Fluent.CacheMap.Policy.W_TINY_LFU));
+            cache.get().put("key", new byte[100]);
+        });
+
+        assertThat(cache.get()).containsKey("key");
+        assertThat(allocated).isLessThan(1 << 20);
+    }
+}
@@ -0,0 +1,124 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.Fluent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    public void bounded() {
+        Fluent.ConcurrentCache<Integer, String> cache = new Fluent.ConcurrentCache<>(100);
+        for (int i = 0; i < 1_000; ++i) cache.append(i, "value" + i);
+        cache.cleanUp();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.weight()).isEqualTo(cache.size());
+        assertThat(cache.evictionCount()).isEqualTo(1_000 - cache.size());
+        cache.forEach((key, value) -> assertThat(value).isEqualTo("value" + key));
+    }
+
+    @Test
+    public void concurrentMapOperations() {
+        Fluent.ConcurrentCache<String, Integer> cache = new Fluent.ConcurrentCache<>(10);
+        cache.append("a", 1).append("b", 2);
+
+        assertThat(cache.putIfAbsent("a", 11)).isEqualTo(1);
+        assertThat(cache.replace("b", 22)).isEqualTo(2);
+        assertThat(cache.replace("b", 2, 222)).isFalse();
+        assertThat(cache.remove("b", 2)).isFalse();
+        assertThat(cache.remove("b", 22)).isTrue();
+        assertThat(cache.merge("a", 5, Integer::sum)).isEqualTo(6);
+        assertThat(cache.computeIfAbsent("c", k -> 3)).isEqualTo(3);
+
+        assertThat(cache).hasSize(2).containsEntry("a", 6).containsEntry("c", 3);
+        assertThat(cache.get("missing")).isNull();
+        assertThat(cache.hitCount()).isGreaterThan(0);
+        assertThat(cache.missCount()).isGreaterThan(0);
+
+        cache.entrySet().removeIf(e -> e.getValue() == 3);
+        assertThat(cache).hasSize(1);
+        assertThat(cache.weight()).isEqualTo(1);
+    }
+
+    @Test
+    public void resistsScans() {
+        Fluent.ConcurrentCache<Integer, Integer> cache = new Fluent.ConcurrentCache<>(100);
+        for (int round = 0; round < 20; ++round) {
+            for (int hot = 0; hot < 50; ++hot) {
+                if (cache.get(hot) == null) cache.put(hot, hot);
+            }
+        }
+        for (int cold = 1_000; cold < 1_300; ++cold) {
+            if (cache.get(cold) == null) cache.put(cold, cold);
+        }
+        cache.cleanUp();
+
+        assertThat(cache.keySet().stream().filter(k -> k < 50).count()).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    public void concurrentAccess() throws Exception {
+        Fluent.ConcurrentCache<Integer, Integer> cache = new Fluent.ConcurrentCache<>(200, (k, v) -> 1 + (k & 1),
+            Runnable::run);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; ++t) {
+                final int seed = t;
+                tasks.add(threads.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 50_000; ++i) {
+                        int key = random.nextInt(1_000);
+                        switch (random.nextInt(8)) {
+                            case 0: cache.remove(key); break;
+                            case 1: cache.put(key, key); break;
+                            default:
+                                Integer value = cache.get(key);
+                                if (value == null) cache.putIfAbsent(key, key);
+                                else assertThat(value).isEqualTo(key);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) task.get();
+        }
+        finally {
+            threads.shutdown();
+        }
+
+        long weight = cache.weight();
+        assertThat(weight).isLessThanOrEqualTo(200);
+        assertThat(weight).isEqualTo(cache.keySet().stream().mapToLong(k -> 1 + (k & 1)).sum());
+    }
+
+    @Test
+    public void executorMaintenance() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Fluent.ConcurrentCache<Integer, Integer> cache = new Fluent.ConcurrentCache<>(100, executor);
+        for (int i = 0; i < 1_000; ++i) cache.put(i, i);
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void largeMaximumWeightIsNotPreallocated() {
+        AtomicReference<Fluent.ConcurrentCache<String, byte[]>> cache = new AtomicReference<>();
+        long allocated = Allocations.allocatedBy(() -> {
+            cache.set(new Fluent.ConcurrentCache<>(1L << 30, (k, v) -> v.length, Runnable::run));
+            cache.get().put("key", new byte[100]);
+            cache.get().cleanUp();
+        });
+
+        assertThat(cache.get()).containsKey("key");
+        assertThat(allocated).isLessThan(1 << 20);
+    }
+}
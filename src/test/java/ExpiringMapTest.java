@@ -0,0 +1,97 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import alexh.Fluent;
+import alexh.Fluent.ExpiringMap.Expiry;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ExpiringMapTest {
+
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.DAYS.toNanos(3));
+
+    private void sleep(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    public void expireAfterWrite() {
+        Fluent.ExpiringMap<String, String> map = new Fluent.ExpiringMap<String, String>(Duration.ofSeconds(10),
+            Expiry.AFTER_WRITE, nanos::get)
+            .append("a", "1")
+            .append("short", "2", Duration.ofSeconds(1));
+
+        sleep(5);
+        assertThat(map).hasSize(1).containsEntry("a", "1");
+        assertThat(map.get("short")).isNull();
+
+        sleep(6);
+        assertThat(map.get("a")).isNull();
+        assertThat(map.containsKey("a")).isFalse();
+        assertThat(map.put("a", "3")).isNull();
+        assertThat(map).hasSize(1).containsEntry("a", "3");
+    }
+
+    @Test
+    public void replaceAllKeepsExpiry() {
+        Fluent.ExpiringMap<String, String> map = new Fluent.ExpiringMap<String, String>(Duration.ofSeconds(10),
+            Expiry.AFTER_WRITE, nanos::get)
+            .append("a", "1")
+            .append("b", "2", Duration.ofSeconds(30));
+
+        sleep(5);
+        map.replaceAll((key, value) -> key + value);
+        assertThat(map).hasSize(2).containsEntry("a", "a1").containsEntry("b", "b2");
+
+        sleep(6);
+        assertThat(map.get("a")).isNull();
+        assertThat(map).hasSize(1).containsEntry("b", "b2");
+    }
+
+    @Test
+    public void expireAfterAccess() {
+        Fluent.ExpiringMap<String, String> map = new Fluent.ExpiringMap<String, String>(Duration.ofSeconds(10),
+            Expiry.AFTER_ACCESS, nanos::get)
+            .append("read", "1")
+            .append("unread", "2");
+
+        for (int i = 0; i < 5; ++i) {
+            sleep(8);
+            assertThat(map.get("read")).isEqualTo("1");
+        }
+        assertThat(map).hasSize(1).containsKey("read").doesNotContainKey("unread");
+
+        sleep(11);
+        assertThat(map.get("read")).isNull();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    public void reapsAsTimePasses() {
+        Fluent.ExpiringMap<Integer, Integer> map = new Fluent.ExpiringMap<>(Duration.ofHours(1), Expiry.AFTER_WRITE,
+            nanos::get);
+        Random random = new Random(3);
+        long start = nanos.get();
+        long[] expiries = new long[100_000];
+        for (int i = 0; i < expiries.length; ++i) {
+            Duration ttl = Duration.ofSeconds(1 + random.nextInt(3 * 24 * 3600));
+            expiries[i] = start + ttl.toNanos();
+            map.put(i, i, ttl);
+        }
+
+        for (int step = 0; step < 100; ++step) {
+            sleep(random.nextInt(5_000));
+            long now = nanos.get();
+            long unexpired = 0, recentlyExpired = 0;
+            for (long expiry : expiries) {
+                if (expiry > now) ++unexpired;
+                else if (expiry > now - TimeUnit.SECONDS.toNanos(2)) ++recentlyExpired;
+            }
+            assertThat((long) map.size()).isBetween(unexpired, unexpired + recentlyExpired);
+        }
+
+        sleep(TimeUnit.DAYS.toSeconds(3));
+        assertThat(map.size()).isZero();
+    }
+}
@@ -52,6 +52,148 @@ public class FluentMapTest {
         assertThat(immutable).hasSize(3);
     }
 
+    @Test
+    public void fluentFreeze() {
+        Fluent.Map<String, Integer> source = new Fluent.LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 100; ++i) source.append("key" + i, i);
+        source.append(null, -1).append("nullValue", null);
+
+        Map<String, Integer> frozen = source.freeze();
+
+        assertThat(frozen).isEqualTo(source);
+        assertThat(frozen.hashCode()).isEqualTo(source.hashCode());
+        assertThat(frozen.keySet()).containsExactlyElementsOf(source.keySet());
+        assertThat(frozen.get("key42")).isEqualTo(42);
+        assertThat(frozen.get(null)).isEqualTo(-1);
+        assertThat(frozen.containsKey("nullValue")).isTrue();
+        assertThat(frozen.get("missing")).isNull();
+
+        source.append("key0", 1000);
+        assertThat(frozen.get("key0")).isEqualTo(0);
+
+        assertThatThrownBy(() -> frozen.put("four", 4)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> frozen.remove("key1")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> frozen.computeIfAbsent("key1", k -> 1)).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(frozen).hasSize(102);
+    }
+
+    @Test
+    public void fluentFreezeIdentityKeys() {
+        Map<String, Integer> frozen = new Fluent.IdentityHashMap<String, Integer>()
+            .append(new String("a"), 1)
+            .append(new String("b"), 2)
+            .freeze();
+
+        assertThat(frozen).hasSize(2).containsEntry("a", 1).containsEntry("b", 2);
+    }
+
+    @Test
+    public void fluentFreezeSmall() {
+        Map<String, Object> customer = new Fluent.LinkedHashMap<String, Object>()
+            .append("name", "Darrel")
+            .append("age", 33)
+            .append(null, "null key")
+            .freeze();
+
+        assertThat(customer).containsOnlyKeys("name", "age", null);
+        assertThat(customer.keySet()).containsExactly("name", "age", null);
+        assertThat(customer.get("age")).isEqualTo(33);
+        assertThat(customer.get(null)).isEqualTo("null key");
+        assertThat(customer.get("missing")).isNull();
+        assertThat(customer).isEqualTo(new HashMap<>(customer));
+        assertThat(customer.hashCode()).isEqualTo(new HashMap<>(customer).hashCode());
+        assertThatThrownBy(() -> customer.put("age", 34)).isInstanceOf(UnsupportedOperationException.class);
+
+        Map<Object, Object> empty = new Fluent.HashMap<>().freeze();
+        assertThat(empty).isEqualTo(Collections.emptyMap());
+        assertThat(empty).isSameAs(new Fluent.LinkedHashMap<>().freeze());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void deepFreezeNested() {
+        Map<String, Object> users = new Fluent.LinkedHashMap<String, Object>()
+            .append("David", new Fluent.HashMap<>()
+                .append("customers", Arrays.asList(
+                    new Fluent.HashMap<>()
+                        .append(new String("name"), "Darrel")
+                        .append("age", 33),
+                    new Fluent.HashMap<>()
+                        .append(new String("name"), "John")
+                        .append("age", 29)))
+                .append("keywords", new ArrayList<>(Arrays.asList("word1", "word2")))
+                .append("tags", new LinkedHashSet<>(Arrays.asList("a", "b", "c"))))
+            .append("Karen", new Fluent.HashMap<>()
+                .append("customers", Collections.emptyList())
+                .append("keywords", new ArrayList<>(Arrays.asList("word1", "word2")))
+                .append("tags", new LinkedHashSet<>(Arrays.asList("a", "b", "c"))));
+
+        Map<String, Object> frozen = (Map<String, Object>) Fluent.deepFreeze(users);
+        assertThat(frozen).isEqualTo(users);
+        assertThat(frozen.keySet()).containsExactly("David", "Karen");
+
+        Map<String, Object> david = (Map<String, Object>) frozen.get("David");
+        Map<String, Object> karen = (Map<String, Object>) frozen.get("Karen");
+        assertThat(david.get("keywords")).isSameAs(karen.get("keywords"));
+        assertThat(david.get("tags")).isSameAs(karen.get("tags"));
+        assertThat((Set<String>) david.get("tags")).containsExactly("a", "b", "c");
+
+        List<Map<String, Object>> customers = (List<Map<String, Object>>) david.get("customers");
+        assertThat(customers.get(0).keySet().iterator().next()).isSameAs(customers.get(1).keySet().iterator().next());
+
+        assertThatThrownBy(() -> frozen.put("Eve", null)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> customers.add(null)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> ((Set<String>) david.get("tags")).remove("a"))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> customers.get(0).put("age", 34)).isInstanceOf(UnsupportedOperationException.class);
+
+        assertThat(Fluent.deepFreeze("leaf")).isEqualTo("leaf");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void deepFreezeDeepAndCyclic() {
+        List<Object> root = new ArrayList<>();
+        List<Object> list = root;
+        for (int i = 0; i < 100_000; ++i) {
+            List<Object> child = new ArrayList<>();
+            list.add(i);
+            list.add(child);
+            list = child;
+        }
+        List<?> frozen = (List<?>) Fluent.deepFreeze(root);
+        for (int i = 0; i < 100_000; ++i) {
+            assertThat(frozen.get(0)).isEqualTo(i);
+            frozen = (List<?>) frozen.get(1);
+        }
+        assertThat(frozen).isEmpty();
+
+        // single child chains, whose hash codes are not cached
+        List<Object> singles = new ArrayList<>();
+        Map<String, Object> maps = new HashMap<>();
+        Object singlesTail = singles, mapsTail = maps;
+        for (int i = 0; i < 100_000; ++i) {
+            List<Object> single = new ArrayList<>();
+            ((List<Object>) singlesTail).add(single);
+            singlesTail = single;
+            Map<String, Object> inner = new HashMap<>();
+            ((Map<String, Object>) mapsTail).put("k", inner);
+            mapsTail = inner;
+        }
+        List<?> frozenSingles = (List<?>) Fluent.deepFreeze(singles);
+        Map<?, ?> frozenMaps = (Map<?, ?>) Fluent.deepFreeze(maps);
+        for (int i = 0; i < 100_000; ++i) {
+            frozenSingles = (List<?>) frozenSingles.get(0);
+            frozenMaps = (Map<?, ?>) frozenMaps.get("k");
+        }
+        assertThat(frozenSingles).isEmpty();
+        assertThat(frozenMaps).isEmpty();
+
+        Map<String, Object> cyclic = new Fluent.HashMap<String, Object>().append("a", 1);
+        cyclic.put("self", Arrays.asList(cyclic));
+        assertThatThrownBy(() -> Fluent.deepFreeze(cyclic)).isInstanceOf(IllegalArgumentException.class);
+    }
+
     enum Inner {
         KEY1, KEY2, KEY3
     }
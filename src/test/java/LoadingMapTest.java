@@ -0,0 +1,80 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.Fluent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class LoadingMapTest {
+
+    @Test
+    public void loadsOncePerKeyConcurrently() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Fluent.LoadingMap<String, String> map = new Fluent.LoadingMap<>(key -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            release.await();
+            return key.toUpperCase();
+        });
+
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> gets = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) gets.add(threads.submit(() -> map.get("key")));
+            loaderStarted.await();
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<String> get : gets) assertThat(get.get()).isEqualTo("KEY");
+        }
+        finally {
+            threads.shutdown();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(map).hasSize(1).containsEntry("key", "KEY");
+    }
+
+    @Test
+    public void failuresAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        Fluent.LoadingMap<String, Integer> map = new Fluent.LoadingMap<>(key -> {
+            if (loads.incrementAndGet() == 1) throw new IOException("backend down");
+            return key.length();
+        }, e -> new UncheckedIOException((IOException) e));
+
+        assertThatThrownBy(() -> map.get("four"))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasCauseInstanceOf(IOException.class);
+        assertThat(map.containsKey("four")).isFalse();
+
+        assertThat(map.get("four")).isEqualTo(4);
+        assertThat(map.get("four")).isEqualTo(4);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void nonLoadingMethods() {
+        AtomicInteger loads = new AtomicInteger();
+        Fluent.LoadingMap<String, Integer> map = new Fluent.LoadingMap<String, Integer>(key -> {
+            loads.incrementAndGet();
+            return key.isEmpty() ? null : key.length();
+        }).append("a", 10);
+
+        assertThat(map.get("")).isNull();
+        assertThat(map.getIfPresent("abc")).isNull();
+        assertThat(map.getOrDefault("abc", -1)).isEqualTo(-1);
+        assertThat(map.computeIfAbsent("abc", key -> 33)).isEqualTo(33);
+        assertThat(map.get("a")).isEqualTo(10);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(map).hasSize(2);
+    }
+}
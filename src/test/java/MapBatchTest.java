@@ -0,0 +1,104 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import alexh.Fluent;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class MapBatchTest {
+
+    @Test
+    public void rowsAndColumns() {
+        List<Map<String, Object>> customers = new ArrayList<>();
+        customers.add(new Fluent.LinkedHashMap<String, Object>()
+            .append("name", "Darrel")
+            .append("age", 33));
+        customers.add(new Fluent.LinkedHashMap<String, Object>()
+            .append("name", "John")
+            .append("age", 29)
+            .append("score", 1.5f));
+        customers.add(new Fluent.LinkedHashMap<String, Object>()
+            .append("name", "Karen")
+            .append("age", 41L)
+            .append("email", null));
+
+        Fluent.MapBatch<String> batch = new Fluent.MapBatch<String>().appendAll(customers);
+
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(batch.columns()).containsExactly("name", "age", "score", "email");
+        assertThat(batch.rows()).isEqualTo(customers);
+        assertThat(batch.row(1).get("score")).isInstanceOf(Float.class).isEqualTo(1.5f);
+        assertThat(batch.row(2).get("age")).isInstanceOf(Long.class);
+        assertThat(batch.row(0).get("age")).isInstanceOf(Integer.class);
+        assertThat(batch.row(0)).doesNotContainKey("score").doesNotContainKey("email");
+        assertThat(batch.row(2)).containsKey("email");
+        assertThat(batch.column("name")).containsExactly("Darrel", "John", "Karen");
+        assertThat(batch.column("score")).containsExactly(null, 1.5f, null);
+        assertThat(batch.column("missing")).containsExactly(null, null, null);
+
+        assertThat(batch.whereLong("age", age -> age > 30)).isEqualTo(bits(0, 2));
+        assertThat(batch.where("name", name -> ((String) name).startsWith("J"))).isEqualTo(bits(1));
+        assertThat(batch.sumLong("age")).isEqualTo(103);
+
+        List<Double> scores = new ArrayList<>();
+        assertThat(batch.whereDouble("score", score -> scores.add(score))).isEqualTo(bits(1));
+        assertThat(scores).containsExactly(1.5);
+
+        assertThatThrownBy(() -> batch.row(0).put("age", 1)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> batch.row(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void scansMatchRowByRow() {
+        Random random = new Random(7);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Fluent.MapBatch<String> batch = new Fluent.MapBatch<>();
+        for (int i = 0; i < 100_000; ++i) {
+            Fluent.Map<String, Object> row = new Fluent.HashMap<String, Object>()
+                .append("id", (long) i)
+                .append("balance", random.nextDouble() * 1000);
+            if (random.nextInt(10) == 0) row.append("region", "north");
+            rows.add(row);
+            batch.append(row);
+        }
+
+        BitSet rich = batch.whereDouble("balance", balance -> balance > 900);
+        double richBalance = 0;
+        long richIds = 0;
+        int richCount = 0;
+        for (int i = 0; i < rows.size(); ++i) {
+            double balance = (Double) rows.get(i).get("balance");
+            if (balance > 900) {
+                assertThat(rich.get(i)).isTrue();
+                richBalance += balance;
+                richIds += i;
+                ++richCount;
+            }
+        }
+        assertThat(rich.cardinality()).isEqualTo(richCount);
+        assertThat(batch.sumDouble("balance", rich)).isCloseTo(richBalance, offset(1e-6));
+        assertThat(batch.sumLong("id", rich)).isEqualTo(richIds);
+
+        LongSummaryStatistics ids = batch.longStats("id", rich);
+        assertThat(ids.getCount()).isEqualTo(richCount);
+        DoubleSummaryStatistics balances = batch.doubleStats("balance", null);
+        assertThat(balances.getCount()).isEqualTo(100_000);
+        assertThat(balances.getMax()).isLessThan(1000);
+
+        BitSet north = batch.where("region", "north"::equals);
+        assertThat(north.cardinality()).isEqualTo((int) rows.stream().filter(r -> r.containsKey("region")).count());
+        assertThat(batch.row(north.nextSetBit(0))).isEqualTo(rows.get(north.nextSetBit(0)));
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int index : indices) bits.set(index);
+        return bits;
+    }
+}
@@ -0,0 +1,77 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.Fluent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedMapTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndOpen() throws IOException {
+        Fluent.Map<String, Long> source = new Fluent.HashMap<>();
+        for (long i = 0; i < 20_000; ++i) source.append("key" + i, i * 7);
+        Path file = folder.getRoot().toPath().resolve("lookup.map");
+
+        Fluent.MappedMap.write(source, file, Fluent.Codec.STRING, Fluent.Codec.LONG);
+
+        try (Fluent.MappedMap<String, Long> mapped = Fluent.MappedMap.open(file, Fluent.Codec.STRING, Fluent.Codec.LONG)) {
+            assertThat(mapped).hasSize(source.size());
+            source.forEach((key, value) -> assertThat(mapped.get(key)).isEqualTo(value));
+            assertThat(mapped.get("missing")).isNull();
+            assertThat(mapped.get(123)).isNull();
+            assertThat(mapped.containsKey("key123")).isTrue();
+            assertThat(mapped).isEqualTo(source);
+            assertThat(mapped.getBytes("key3").getLong()).isEqualTo(21L);
+
+            assertThatThrownBy(() -> mapped.put("new", 1L)).isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+    @Test
+    public void rewriteReplacesFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("small.map");
+        Fluent.MappedMap.write(new Fluent.HashMap<String, String>().append("a", "1"), file,
+            Fluent.Codec.STRING, Fluent.Codec.STRING);
+        Fluent.MappedMap.write(new Fluent.HashMap<String, String>().append("b", "2").append("c", "3"), file,
+            Fluent.Codec.STRING, Fluent.Codec.STRING);
+
+        try (Fluent.MappedMap<String, String> mapped = Fluent.MappedMap.open(file, Fluent.Codec.STRING, Fluent.Codec.STRING)) {
+            assertThat(mapped).hasSize(2).containsEntry("b", "2").containsEntry("c", "3");
+            ByteBuffer value = mapped.getBytes("c");
+            assertThat(StandardCharsets.UTF_8.decode(value).toString()).isEqualTo("3");
+        }
+        assertThat(Files.list(folder.getRoot().toPath()).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void emptyAndClosed() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.map");
+        Fluent.MappedMap.write(new Fluent.HashMap<String, String>(), file, Fluent.Codec.STRING, Fluent.Codec.STRING);
+
+        Fluent.MappedMap<String, String> mapped = Fluent.MappedMap.open(file, Fluent.Codec.STRING, Fluent.Codec.STRING);
+        assertThat((Map<String, String>) mapped).isEmpty();
+        assertThat(mapped.get("a")).isNull();
+        mapped.close();
+
+        assertThatThrownBy(mapped::size).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void invalidFile() throws IOException {
+        Path file = folder.newFile("not-a-map").toPath();
+        Files.write(file, "definitely not a map file".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> Fluent.MappedMap.open(file, Fluent.Codec.STRING, Fluent.Codec.STRING))
+            .isInstanceOf(IOException.class);
+    }
+}
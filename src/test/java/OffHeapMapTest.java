@@ -0,0 +1,99 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.Fluent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class OffHeapMapTest {
+
+    @Test
+    public void fluentUsage() {
+        try (Fluent.OffHeapMap<String, Long> map = new Fluent.OffHeapMap<>(Fluent.Codec.STRING, Fluent.Codec.LONG)) {
+            map.append("one", 1L)
+                .append("two", 2L)
+                .append("three", 3L);
+
+            assertThat(map).hasSize(3)
+                .containsEntry("one", 1L)
+                .containsEntry("three", 3L);
+            assertThat(map.get("four")).isNull();
+            assertThat(map.get(4)).isNull();
+            assertThat(map.put("two", 22L)).isEqualTo(2L);
+            assertThat(map.remove("one")).isEqualTo(1L);
+            assertThat(map).isEqualTo(new Fluent.HashMap<>().append("two", 22L).append("three", 3L));
+            assertThat(map.memoryUsage()).isGreaterThan(0);
+        }
+    }
+
+    @Test
+    public void matchesHashMap() {
+        try (Fluent.OffHeapMap<Integer, String> map = new Fluent.OffHeapMap<>(Fluent.Codec.INTEGER, Fluent.Codec.STRING, 4, 4096)) {
+            Map<Integer, String> expected = new HashMap<>();
+            Random random = new Random(42);
+
+            for (int i = 0; i < 50_000; ++i) {
+                int key = random.nextInt(3_000);
+                if (random.nextInt(3) == 0) assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+                else {
+                    String value = "value-" + i;
+                    assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+                }
+            }
+
+            assertThat(map).isEqualTo(expected);
+            long beforeCompact = map.memoryUsage();
+            map.compact();
+            assertThat(map).isEqualTo(expected);
+            assertThat(map.memoryUsage()).isLessThanOrEqualTo(beforeCompact);
+
+            map.clear();
+            assertThat(map).isEmpty();
+            assertThat(map.append(1, "one").get(1)).isEqualTo("one");
+        }
+    }
+
+    @Test
+    public void viewsRemove() {
+        try (Fluent.OffHeapMap<Integer, String> map = new Fluent.OffHeapMap<>(Fluent.Codec.INTEGER, Fluent.Codec.STRING, 4, 4096)) {
+            Map<Integer, String> expected = new HashMap<>();
+            for (int i = 0; i < 5_000; ++i) {
+                map.put(i * 31, "value-" + i);
+                expected.put(i * 31, "value-" + i);
+            }
+
+            assertThat(map.keySet().remove(31)).isEqualTo(expected.keySet().remove(31));
+            map.entrySet().removeIf(e -> e.getKey() % 3 == 0);
+            expected.entrySet().removeIf(e -> e.getKey() % 3 == 0);
+            assertThat(map.values().remove("value-2")).isTrue();
+            expected.values().remove("value-2");
+
+            assertThat(map).isEqualTo(expected);
+            expected.forEach((k, v) -> assertThat(map.get(k)).isEqualTo(v));
+        }
+    }
+
+    @Test
+    public void replaceAll() {
+        try (Fluent.OffHeapMap<String, Long> map = new Fluent.OffHeapMap<>(Fluent.Codec.STRING, Fluent.Codec.LONG)) {
+            map.append("one", 1L).append("two", 2L);
+            map.replaceAll((key, value) -> value * 10 + key.length());
+
+            assertThat(map).hasSize(2)
+                .containsEntry("one", 13L)
+                .containsEntry("two", 23L);
+        }
+    }
+
+    @Test
+    public void closed() {
+        Fluent.OffHeapMap<String, String> map = new Fluent.OffHeapMap<>(Fluent.Codec.STRING, Fluent.Codec.STRING)
+            .append("key", "value");
+        map.close();
+        map.close();
+
+        assertThatThrownBy(() -> map.get("key")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> map.append("key", "value")).isInstanceOf(IllegalStateException.class);
+    }
+}
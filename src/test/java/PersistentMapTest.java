@@ -0,0 +1,94 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.Fluent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class PersistentMapTest {
+
+    @Test
+    public void appendReturnsNewVersion() {
+        Fluent.PersistentMap<String, String> base = new Fluent.PersistentMap<String, String>()
+            .append("user", "David")
+            .append("locale", "en");
+        Fluent.PersistentMap<String, String> derived = base.append("locale", "fr");
+
+        assertThat(base).hasSize(2).containsEntry("locale", "en");
+        assertThat(derived).hasSize(2).containsEntry("locale", "fr").containsEntry("user", "David");
+        assertThat(derived.append("locale", "fr")).isSameAs(derived);
+        assertThat(derived.without("missing")).isSameAs(derived);
+        assertThat(derived.without("user")).hasSize(1).doesNotContainKey("user");
+        assertThat(new Fluent.PersistentMap<>(derived)).isEqualTo(derived);
+
+        assertThatThrownBy(() -> base.put("user", "Karen")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(base.get("user")).isEqualTo("David");
+    }
+
+    @Test
+    public void versionsMatchHashMaps() {
+        Random random = new Random(7);
+        Fluent.PersistentMap<Integer, Integer> map = new Fluent.PersistentMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        List<Fluent.PersistentMap<Integer, Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> expectedVersions = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; ++i) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            }
+            else {
+                map = map.append(key, i);
+                expected.put(key, i);
+            }
+            if (i % 1_000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+        for (int v = 0; v < versions.size(); ++v) {
+            assertThat(versions.get(v)).isEqualTo(expectedVersions.get(v));
+            assertThat(versions.get(v)).hasSize(expectedVersions.get(v).size());
+        }
+    }
+
+    @Test
+    public void hashCollisions() {
+        Fluent.PersistentMap<Object, Integer> map = new Fluent.PersistentMap<>();
+        for (int i = 0; i < 10; ++i) map = map.append(new Colliding(i), i);
+        map = map.append(null, -1);
+
+        assertThat(map).hasSize(11);
+        for (int i = 0; i < 10; ++i) assertThat(map.get(new Colliding(i))).isEqualTo(i);
+        assertThat(map.get(null)).isEqualTo(-1);
+
+        for (int i = 0; i < 9; ++i) map = map.without(new Colliding(i));
+        assertThat(map).hasSize(2).containsEntry(new Colliding(9), 9).containsEntry(null, -1);
+    }
+
+    static class Colliding {
+        final int id;
+
+        Colliding(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Colliding && ((Colliding) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import alexh.Fluent;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class PrimitiveMapTest {
+
+    @Test
+    public void intObjectMap() {
+        Fluent.IntObjectMap<String> map = new Fluent.IntObjectMap<String>()
+            .append(0, "zero")
+            .append(1, "one")
+            .append(-7, "minus seven");
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(0)).isEqualTo("zero");
+        assertThat(map.get(-7)).isEqualTo("minus seven");
+        assertThat(map.get(2)).isNull();
+        assertThat(map.getOrDefault(2, "none")).isEqualTo("none");
+        assertThat(map.asMap()).containsEntry(1, "one").hasSize(3);
+
+        Fluent.IntObjectMap<String> copy = new Fluent.IntObjectMap<String>().appendAll(map);
+        assertThat(copy).isEqualTo(map);
+
+        assertThat(map.remove(0)).isEqualTo("zero");
+        assertThat(map.containsKey(0)).isFalse();
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void intObjectMapMatchesHashMap() {
+        Fluent.IntObjectMap<Integer> map = new Fluent.IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(123);
+
+        for (int i = 0; i < 100_000; ++i) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            else assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+        }
+
+        assertThat(map.asMap()).isEqualTo(expected);
+        expected.forEach((k, v) -> assertThat(map.get(k)).isEqualTo(v));
+    }
+
+    @Test
+    public void longLongMapCounters() {
+        Fluent.LongLongMap counts = new Fluent.LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(321);
+
+        for (int i = 0; i < 100_000; ++i) {
+            long key = random.nextInt(5_000) * 1_000_000_007L;
+            if (random.nextInt(4) == 0) {
+                Long removed = expected.remove(key);
+                assertThat(counts.remove(key)).isEqualTo(removed == null ? 0 : removed);
+            }
+            else {
+                long added = expected.merge(key, 2L, Long::sum);
+                assertThat(counts.addTo(key, 2)).isEqualTo(added);
+            }
+        }
+
+        assertThat(counts.asMap()).isEqualTo(expected);
+        assertThat(counts.size()).isEqualTo(expected.size());
+        assertThat(counts.get(-1)).isEqualTo(0);
+    }
+
+    @Test
+    public void objectIntMap() {
+        Fluent.ObjectIntMap<String> ages = new Fluent.ObjectIntMap<String>()
+            .append("Darrel", 33)
+            .append("John", 29)
+            .append(null, 1);
+
+        assertThat(ages.get("Darrel")).isEqualTo(33);
+        assertThat(ages.get(null)).isEqualTo(1);
+        assertThat(ages.get("missing")).isEqualTo(0);
+        assertThat(ages.addTo("John", 1)).isEqualTo(30);
+
+        Map<String, Integer> sum = new HashMap<>();
+        ages.forEach((String name, int age) -> sum.merge("total", age, Integer::sum));
+        assertThat(sum.get("total")).isEqualTo(64);
+
+        Fluent.Map<String, Integer> view = ages.asMap().append("Karen", 41);
+        assertThat(ages.get("Karen")).isEqualTo(41);
+        assertThat(view.remove("Karen")).isEqualTo(41);
+        assertThat(view.get("Karen")).isNull();
+        assertThat(ages.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void viewIteratorsRemove() {
+        Fluent.IntObjectMap<Integer> map = new Fluent.IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(456);
+        for (int i = 0; i < 10_000; ++i) {
+            int key = random.nextInt(20_000) - 10_000;
+            map.put(key, i);
+            expected.put(key, i);
+        }
+
+        Fluent.Map<Integer, Integer> view = map.asMap();
+        assertThat(view.keySet().remove(0)).isEqualTo(expected.keySet().remove(0));
+        view.entrySet().removeIf(e -> e.getValue() % 3 == 0);
+        expected.entrySet().removeIf(e -> e.getValue() % 3 == 0);
+        view.values().remove(expected.values().iterator().next());
+        expected.values().remove(expected.values().iterator().next());
+
+        assertThat(view).isEqualTo(expected);
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((k, v) -> assertThat(map.get(k)).isEqualTo(v));
+
+        Fluent.LongLongMap counts = new Fluent.LongLongMap().append(0L, 1L).append(1L, 2L).append(2L, 3L);
+        counts.asMap().keySet().removeIf(key -> key < 2);
+        assertThat(counts.asMap()).containsOnly(entry(2L, 3L));
+
+        Fluent.ObjectIntMap<String> ages = new Fluent.ObjectIntMap<String>().append(null, 1).append("a", 2);
+        ages.asMap().keySet().remove(null);
+        ages.asMap().keySet().remove("a");
+        assertThat(ages.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void viewIteratorsFailFast() {
+        Fluent.IntObjectMap<String> map = new Fluent.IntObjectMap<String>().append(1, "one").append(2, "two");
+        Iterator<Integer> keys = map.asMap().keySet().iterator();
+        keys.next();
+        for (int i = 3; i < 100; ++i) map.put(i, "many");
+
+        assertThatThrownBy(keys::next).isInstanceOf(ConcurrentModificationException.class);
+        Iterator<Integer> removing = map.asMap().keySet().iterator();
+        assertThatThrownBy(removing::remove).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void viewReplaceAll() {
+        Fluent.LongLongMap counts = new Fluent.LongLongMap().append(0L, 1L).append(5L, 2L);
+        counts.asMap().replaceAll((key, value) -> key + value * 10);
+
+        assertThat(counts.get(0L)).isEqualTo(10L);
+        assertThat(counts.get(5L)).isEqualTo(25L);
+    }
+}
@@ -0,0 +1,83 @@
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import alexh.Fluent;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ShapedMapTest {
+
+    @Test
+    public void mapsWithSameKeysShareShape() {
+        Fluent.ShapedMap<String, Object> darrel = new Fluent.ShapedMap<>();
+        darrel.append("name", "Darrel").append("age", 33);
+        Fluent.ShapedMap<String, Object> john = new Fluent.ShapedMap<>();
+        john.append("name", "John").append("age", 29);
+        Fluent.ShapedMap<String, Object> reversed = new Fluent.ShapedMap<>();
+        reversed.append("age", 40).append("name", "Karen");
+
+        assertThat(darrel.hasSameShape(john)).isTrue();
+        assertThat(darrel.hasSameShape(reversed)).isFalse();
+        assertThat(darrel).containsExactly(entry("name", "Darrel"), entry("age", 33));
+        assertThat(darrel).isEqualTo(new Fluent.HashMap<>().append("age", 33).append("name", "Darrel"));
+        assertThat(darrel.hashCode()).isEqualTo(new LinkedHashMap<>(darrel).hashCode());
+
+        assertThat(john.put("age", 30)).isEqualTo(29);
+        assertThat(john.get("age")).isEqualTo(30);
+        assertThat(darrel.hasSameShape(john)).isTrue();
+
+        john.append("email", null);
+        assertThat(john).hasSize(3).containsEntry("email", null);
+        assertThat(darrel.hasSameShape(john)).isFalse();
+        assertThat(john.remove("email")).isNull();
+        assertThat(darrel.hasSameShape(john)).isTrue();
+
+        assertThat(darrel.get("missing")).isNull();
+        assertThat(darrel.get(null)).isNull();
+        assertThatThrownBy(() -> darrel.put(null, "")).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void largeShapesAndRemoval() {
+        Fluent.ShapedMap<String, Integer> map = new Fluent.ShapedMap<>();
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 50; ++i) {
+            map.put("key" + i, i);
+            expected.put("key" + i, i);
+        }
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.keySet()).containsExactlyElementsOf(expected.keySet());
+
+        assertThat(map.remove("key10")).isEqualTo(10);
+        expected.remove("key10");
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.keySet()).containsExactlyElementsOf(expected.keySet());
+
+        for (Iterator<Map.Entry<String, Integer>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (entry.getValue() % 2 == 0) it.remove();
+            else entry.setValue(-entry.getValue());
+        }
+        assertThat(map).hasSize(25).containsEntry("key49", -49).doesNotContainKey("key48");
+
+        Iterator<Map.Entry<String, Integer>> entries = map.entrySet().iterator();
+        assertThatThrownBy(entries::remove).isInstanceOf(IllegalStateException.class);
+        entries.next();
+        entries.next();
+        entries.remove();
+        assertThatThrownBy(entries::remove).isInstanceOf(IllegalStateException.class);
+        assertThat(map).hasSize(24).containsKey("key1").doesNotContainKey("key3");
+
+        Fluent.ShapedMap<String, Integer> copy = new Fluent.ShapedMap<>(map);
+        assertThat(copy.hasSameShape(map)).isTrue();
+
+        map.clear();
+        assertThat(map.size()).isZero();
+        assertThat(map.hasSameShape(new Fluent.ShapedMap<>())).isTrue();
+    }
+
+    private static Map.Entry<String, Object> entry(String key, Object value) {
+        return new java.util.AbstractMap.SimpleEntry<>(key, value);
+    }
+}
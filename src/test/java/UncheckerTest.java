@@ -1,16 +1,39 @@
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static alexh.Unchecker.*;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class UncheckerTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private boolean workingTests = true;
 
     @Test(expected = RuntimeException.class)
@@ -185,6 +208,447 @@ public class UncheckerTest {
         unchecked(ThrowingUtility::throwSomething);
     }
 
+    @Test
+    public void uncheckPrimitiveFunctions_work() {
+        assertThat(IntStream.range(0, 5)
+            .filter(uncheckIntPredicate((int i) -> {
+                if (i < 0) throw new IOException("IO error");
+                return i % 2 == 0;
+            }))
+            .map(uncheckIntUnaryOperator((int i) -> i * 10))
+            .mapToObj(uncheckIntFunction((int i) -> "#" + i))
+            .collect(Collectors.joining(",")), is("#0,#20,#40"));
+
+        assertThat(Stream.of("a", "bb", "ccc")
+            .mapToLong(uncheckToLongFunction((String s) -> s.length()))
+            .map(uncheckLongUnaryOperator((long l) -> l * l))
+            .sum(), is(14L));
+
+        assertThat(LongStream.rangeClosed(1, 4)
+            .mapToDouble(uncheckLongToDoubleFunction((long l) -> l / 2.0))
+            .reduce(0, uncheckDoubleBinaryOperator((double a, double b) -> a + b)), is(5.0));
+
+        assertThat(uncheckBooleanSupplier(() -> workingTests).getAsBoolean(), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void uncheckPrimitiveFunctions_throw() {
+        IntStream.range(0, 5)
+            .mapToLong(uncheckIntToLongFunction((int i) -> {
+                if (i == 3) throw new IOException("IO error");
+                return i;
+            }, IllegalStateException::new))
+            .sum();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void uncheckObjIntConsumer_throws() {
+        uncheckObjIntConsumer((String s, int i) -> {
+            if (i > 0) throw new IOException("IO error");
+        }).accept("hello", 1);
+    }
+
+    @Test
+    public void stacklessExceptionTransformer() {
+        IOException cause = new IOException("IO error");
+        try {
+            unchecked(() -> {
+                throw cause;
+            }, STACKLESS_EXCEPTION_TRANSFORMER);
+            fail("should have thrown");
+        }
+        catch (UncheckedException e) {
+            assertThat(e.getCause(), is(cause));
+            assertThat(e.getStackTrace().length, is(0));
+            assertThat(e.getMessage(), is("java.io.IOException: IO error"));
+        }
+    }
+
+    @Test
+    public void defaultExceptionTransformerSwitch() {
+        Function<Throwable, ? extends RuntimeException> original = getDefaultExceptionTransformer();
+        Runnable unchecked = uncheck(() -> {
+            if (workingTests) throw new IOException("IO error");
+        });
+        try {
+            setDefaultExceptionTransformer(STACKLESS_EXCEPTION_TRANSFORMER);
+            try {
+                unchecked.run();
+                fail("should have thrown");
+            }
+            catch (UncheckedException e) {
+                assertThat(e.getCause() instanceof IOException, is(true));
+            }
+        }
+        finally {
+            setDefaultExceptionTransformer(original);
+        }
+
+        try {
+            unchecked.run();
+            fail("should have thrown");
+        }
+        catch (RuntimeException e) {
+            assertThat(e.getClass() == RuntimeException.class, is(true));
+        }
+    }
+
+    @Test
+    public void sneakyRethrowsOriginal() {
+        IOException cause = new IOException("IO error");
+        try {
+            Stream.of("a").map(sneaky((String s) -> {
+                if (workingTests) throw cause;
+                return s;
+            })).collect(Collectors.toList());
+            fail("should have thrown");
+        }
+        catch (Exception e) {
+            assertThat(e, is((Exception) cause));
+        }
+
+        try {
+            sneakyRun(() -> {
+                throw cause;
+            });
+            fail("should have thrown");
+        }
+        catch (Exception e) {
+            assertThat(e, is((Exception) cause));
+        }
+
+        try {
+            IntStream.of(1).map(sneakyIntUnaryOperator((int i) -> {
+                if (i > 0) throw cause;
+                return i;
+            })).sum();
+            fail("should have thrown");
+        }
+        catch (Exception e) {
+            assertThat(e, is((Exception) cause));
+        }
+    }
+
+    @Test
+    public void sneaky_works() {
+        assertThat(sneakyGet(() -> "hello"), is("hello"));
+        assertThat(sneaky((String s, Integer i) -> s.length() + i).apply("world", 1), is(6));
+        assertThat(sneakyToIntFunction((String s) -> s.length()).applyAsInt("abc"), is(3));
+    }
+
+    @Test
+    public void attemptKeepsFailuresAsData() {
+        List<Result<Integer>> results = Stream.of("1", "two", "3")
+            .map(attempt((String s) -> {
+                if (!s.matches("\\d+")) throw new IOException("not a number: " + s);
+                return Integer.parseInt(s);
+            }))
+            .collect(Collectors.toList());
+
+        assertThat(results.get(0), is(Result.success(1)));
+        assertThat(results.get(1).isFailure(), is(true));
+        assertThat(results.get(1).getFailure() instanceof IOException, is(true));
+        assertThat(results.get(2).map((Integer i) -> i * 10).orElseThrow(), is(30));
+
+        assertThat(results.get(1).map((Integer i) -> i * 10).recover((Throwable t) -> -1).orElseThrow(), is(-1));
+        assertThat(results.get(0).flatMap((Integer i) -> Result.failure(new IOException("no"))).isFailure(), is(true));
+        assertThat(results.get(0).map((Integer i) -> {
+            throw new IOException("no");
+        }).orElse(0), is(0));
+        assertThat(attemptGet(() -> "ok").orElseThrow(), is("ok"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void attemptFailureOrElseThrow() {
+        attemptGet(() -> {
+            throw new IOException("IO error");
+        }).orElseThrow(IllegalStateException::new);
+    }
+
+    @Test(expected = StackOverflowError.class)
+    public void failureOrElseThrowRethrowsErrors() {
+        Result.failure(new StackOverflowError()).orElseThrow();
+    }
+
+    @Test
+    public void tolerantRoutesFailures() {
+        Failures<String> failures = Failures.collecting(1, 10);
+        List<Integer> parsed = Stream.of("1", "x", "3", "y")
+            .flatMap(tolerant((String s) -> {
+                if (!s.matches("\\d+")) throw new IOException("not a number: " + s);
+                return Integer.parseInt(s);
+            }, failures))
+            .collect(Collectors.toList());
+
+        assertThat(parsed.toString(), is("[1, 3]"));
+        assertThat(failures.successCount(), is(2L));
+        assertThat(failures.failureCount(), is(2L));
+        assertThat(failures.retained().size(), is(1));
+        assertThat(failures.retained().get(0).getElement(), is("x"));
+        assertThat(failures.retained().get(0).getException() instanceof IOException, is(true));
+    }
+
+    @Test
+    public void tolerantFailureBudget() {
+        List<Object> sink = new ArrayList<>();
+        try {
+            Stream.of("a", "b", "c", "d")
+                .flatMap(tolerant((String s) -> {
+                    if (!s.equals("a")) throw new IOException(s);
+                    return s;
+                }, Failures.to((String s, Throwable t) -> sink.add(s), 2)))
+                .collect(Collectors.toList());
+            fail("should have thrown");
+        }
+        catch (FailureBudgetExceededException e) {
+            assertThat(e.getFailureCount(), is(3L));
+            assertThat(e.getCause().getMessage(), is("d"));
+            assertThat(sink.toString(), is("[b, c, d]"));
+        }
+    }
+
+    @Test
+    public void tolerantDeadLetterFile() throws IOException {
+        Path deadLetters = folder.getRoot().toPath().resolve("dead-letters.txt");
+        try (Failures<String> failures = Failures.toDeadLetterFile(deadLetters, Long.MAX_VALUE)) {
+            Stream.of("ok", "bad", "multi\nline\trow").flatMap(tolerant((String s) -> {
+                if (!s.equals("ok")) throw new IOException("IO error\r\nat " + s.replace('\n', '\\'));
+                return s;
+            }, failures)).forEach(s -> {});
+        }
+        assertThat(Files.readAllLines(deadLetters), is(Arrays.asList(
+            "bad\tjava.io.IOException: IO error\\r\\nat bad",
+            "multi\\nline\\trow\tjava.io.IOException: IO error\\r\\nat multi\\\\line\\trow")));
+    }
+
+    @Test
+    public void parallelMapBoundsConcurrency() {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        List<Integer> inputs = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+        List<String> outputs = parallelMap(inputs, (Integer i) -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            concurrent.decrementAndGet();
+            return "#" + i;
+        }, 4);
+
+        assertThat(outputs, is(inputs.stream().map(i -> "#" + i).collect(Collectors.toList())));
+        assertThat(maxConcurrent.get() <= 4, is(true));
+        assertThat(maxConcurrent.get() > 1, is(true));
+
+        List<Integer> unordered = parallelMapUnordered(inputs, (Integer i) -> i * 2, 8);
+        assertThat(unordered.stream().mapToInt(i -> i).sum(), is(9900));
+    }
+
+    @Test
+    public void parallelMapNullOutputs() {
+        List<Integer> inputs = Arrays.asList(1, 2, 3);
+        ThrowingFunction<Integer, Integer> nullForTwo = i -> i == 2 ? null : i;
+
+        assertThat(parallelMap(inputs, nullForTwo, 2), is(Arrays.asList(1, null, 3)));
+        List<Integer> unordered = parallelMapUnordered(inputs, nullForTwo, 2);
+        assertThat(unordered.size(), is(3));
+        assertThat(unordered.contains(null), is(true));
+        assertThat(unordered.containsAll(Arrays.asList(1, 3)), is(true));
+    }
+
+    @Test
+    public void parallelMapCancelsOnFirstFailure() {
+        IOException cause = new IOException("IO error");
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger interrupted = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            parallelMap(IntStream.range(0, 50).boxed().collect(Collectors.toList()), (Integer i) -> {
+                started.incrementAndGet();
+                if (i == 5) throw cause;
+                try {
+                    Thread.sleep(10_000);
+                }
+                catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw e;
+                }
+                return i;
+            }, 8);
+            fail("should have thrown");
+        }
+        catch (RuntimeException e) {
+            assertThat(e.getCause(), is((Throwable) cause));
+        }
+        assertThat(System.nanoTime() - start < 5_000_000_000L, is(true));
+        assertThat(started.get() < 50, is(true));
+        assertThat(interrupted.get(), is(started.get() - 1));
+    }
+
+    @Test
+    public void parallelMapInCommonPool() throws Exception {
+        List<Integer> inputs = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        List<Integer> outputs = java.util.concurrent.ForkJoinPool.commonPool().submit(() ->
+            parallelMap(inputs, (Integer i) -> i + 1, 4, java.util.concurrent.ForkJoinPool.commonPool(),
+                IllegalStateException::new)
+        ).get();
+        assertThat(outputs.get(19), is(20));
+    }
+
+    @Test
+    public void forkAllShutsDownOnFailure() {
+        List<ThrowingSupplier<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            int task = i;
+            tasks.add(() -> {
+                Thread.sleep(5);
+                return task;
+            });
+        }
+        assertThat(forkAll(tasks).stream().mapToInt(i -> i).sum(), is(19900));
+
+        IOException cause = new IOException("IO error");
+        AtomicInteger interrupted = new AtomicInteger();
+        tasks.clear();
+        tasks.add(() -> {
+            Thread.sleep(50);
+            throw cause;
+        });
+        for (int i = 0; i < 10; ++i) {
+            tasks.add(() -> {
+                try {
+                    Thread.sleep(10_000);
+                }
+                catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw e;
+                }
+                return 0;
+            });
+        }
+        long start = System.nanoTime();
+        try {
+            forkAll(tasks, IllegalStateException::new);
+            fail("should have thrown");
+        }
+        catch (IllegalStateException e) {
+            assertThat(e.getCause(), is((Throwable) cause));
+        }
+        assertThat(System.nanoTime() - start < 5_000_000_000L, is(true));
+        assertThat(interrupted.get(), is(10));
+    }
+
+    @Test
+    public void forkAnyReturnsFirstSuccess() {
+        AtomicInteger interrupted = new AtomicInteger();
+        List<ThrowingSupplier<String>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new IOException("primary down");
+        });
+        tasks.add(() -> {
+            Thread.sleep(20);
+            return "fallback";
+        });
+        tasks.add(() -> {
+            try {
+                Thread.sleep(10_000);
+            }
+            catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw e;
+            }
+            return "slow";
+        });
+        assertThat(forkAny(tasks), is("fallback"));
+
+        IOException first = new IOException("first");
+        tasks.clear();
+        tasks.add(() -> {
+            throw first;
+        });
+        tasks.add(() -> {
+            Thread.sleep(20);
+            throw new IOException("second");
+        });
+        try {
+            forkAny(tasks, IllegalStateException::new);
+            fail("should have thrown");
+        }
+        catch (IllegalStateException e) {
+            assertThat(e.getCause(), is((Throwable) first));
+            assertThat(first.getSuppressed().length, is(1));
+        }
+    }
+
+    @Test
+    public void asyncAdaptersKeepOriginalCause() {
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<String> content = uncheckAsync(() -> "a,b", tasks::add);
+        CompletableFuture<Integer> fields = thenApply(content, (String s) -> s.split(",").length);
+        CompletableFuture<Integer> doubled = thenCompose(fields, (Integer i) -> uncheckAsync(() -> i * 2, Runnable::run));
+        assertThat(doubled.isDone(), is(false));
+        tasks.forEach(Runnable::run);
+        assertThat(uncheckedJoin(doubled), is(4));
+
+        IOException cause = new IOException("IO error");
+        CompletableFuture<String> failed = uncheckAsync(() -> {
+            if (workingTests) throw cause;
+            return "";
+        }, Runnable::run);
+        CompletableFuture<Integer> chained = thenCompose(thenApply(failed, String::length),
+            (Integer i) -> CompletableFuture.completedFuture(i));
+        AtomicReference<Throwable> completedWith = new AtomicReference<>();
+        chained.whenComplete((value, ex) -> completedWith.set(ex));
+        assertThat(completedWith.get(), is((Throwable) cause));
+        try {
+            uncheckedJoin(chained, IllegalStateException::new);
+            fail("should have thrown");
+        }
+        catch (IllegalStateException e) {
+            assertThat(e.getCause(), is((Throwable) cause));
+        }
+
+        // stripping layers added by the standard CompletableFuture methods
+        CompletableFuture<Integer> standard = CompletableFuture.<Integer>supplyAsync(() -> {
+            throw new UncheckedIOException(cause);
+        }, Runnable::run).thenApply(i -> i + 1);
+        try {
+            standard.get();
+            fail("should have thrown");
+        }
+        catch (Exception e) {
+            assertThat(unwrap(e), is(instanceOf(UncheckedIOException.class)));
+            assertThat(unwrap(new ExecutionException(new CompletionException(cause))), is((Throwable) cause));
+        }
+    }
+
+    @Test
+    public void uncheckedCallsDoNotAllocate() {
+        String value = "value";
+        Function<String, String> function = uncheck((String s) -> s);
+        BiFunction<String, String, String> biFunction = uncheck((String s, String t) -> s);
+        Consumer<String> consumer = uncheck((String s) -> {});
+        BiConsumer<String, String> biConsumer = uncheck((String s, String t) -> {});
+        Supplier<String> supplier = uncheck(() -> value);
+        Runnable runnable = uncheck(() -> {});
+        ThrowingSupplier<String> throwingSupplier = () -> value;
+        ThrowingRunnable throwingRunnable = () -> {};
+
+        long allocated = Allocations.allocatedBy(() -> {
+            for (int i = 0; i < 1_000_000; ++i) {
+                function.apply(value);
+                biFunction.apply(value, value);
+                consumer.accept(value);
+                biConsumer.accept(value, value);
+                supplier.get();
+                runnable.run();
+                uncheckedGet(throwingSupplier);
+                unchecked(throwingRunnable);
+            }
+        });
+
+        // less than a byte per call, ie only measurement noise
+        assertThat("allocated " + allocated + " bytes", allocated < 8_000_000, is(true));
+    }
+
     static class ThrowingUtility {
 
         static String throwSomethingNeverReturn() throws Throwable {